@@ -0,0 +1,64 @@
+package com.example.gradle;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The property bridge the plugin uses for the Flyway and jOOQ objects, against the per-call
+ * {@code getMethod}/{@code getMethods} lookup it replaced.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BeanAccessorBenchmark {
+
+    public static class Target {
+        private String inputSchema = "app";
+        private Boolean pojos;
+
+        public String getInputSchema() { return inputSchema; }
+        public void setInputSchema(String inputSchema) { this.inputSchema = inputSchema; }
+        public Boolean isPojos() { return pojos; }
+        public void setPojos(Boolean pojos) { this.pojos = pojos; }
+    }
+
+    private final Target target = new Target();
+
+    @Benchmark
+    public Object cachedGet() {
+        return BeanAccessor.get(target, "inputSchema");
+    }
+
+    @Benchmark
+    public void cachedSetWithConversion() {
+        BeanAccessor.set(target, "pojos", "true");
+    }
+
+    @Benchmark
+    public Object reflectiveGet() throws ReflectiveOperationException {
+        return target.getClass().getMethod("getInputSchema").invoke(target);
+    }
+
+    @Benchmark
+    public void reflectiveSetWithConversion() throws ReflectiveOperationException {
+        for (Method method : target.getClass().getMethods()) {
+            if (method.getName().equals("setPojos") && method.getParameterCount() == 1) {
+                method.invoke(target, Boolean.parseBoolean("true"));
+                return;
+            }
+        }
+    }
+}
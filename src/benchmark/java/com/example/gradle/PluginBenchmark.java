@@ -0,0 +1,201 @@
+package com.example.gradle;
+
+import org.gradle.testkit.runner.GradleRunner;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Generates fixture projects with {@code benchmark.configurations} schema configurations of
+ * {@code benchmark.migrations} migrations and {@code benchmark.tables} tables each, builds them with
+ * TestKit for every database type and writes one {@code database, scenario, metric, millis} line per
+ * measurement, sorted, so two result files diff cleanly.
+ *
+ * <ul>
+ *   <li>{@code configure}: a {@code --dry-run} of all generate tasks, i.e. configuration only</li>
+ *   <li>{@code cold}: all generate tasks rerun on a fresh container</li>
+ *   <li>{@code warm}: the same on a reused container left running by a previous build</li>
+ * </ul>
+ * Besides the wall time of each build, the totals of the plugin's timing report are recorded.
+ */
+public final class PluginBenchmark {
+    private static final Pattern TOTAL = Pattern.compile("\"([A-Za-z.]+)\": (\\d+)");
+
+    private PluginBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        Path fixtures = Path.of(args[0]);
+        Path report = Path.of(args[1]);
+        int configurations = Integer.getInteger("benchmark.configurations", 3);
+        int migrations = Integer.getInteger("benchmark.migrations", 20);
+        int tables = Integer.getInteger("benchmark.tables", 10);
+        List<SupportedDatabase> databases = Arrays.stream(System.getProperty("benchmark.databases", "POSTGRES,MYSQL,MARIADB").split(","))
+            .map(String::trim)
+            .map(name -> SupportedDatabase.valueOf(name.toUpperCase(Locale.ROOT)))
+            .toList();
+
+        Map<String, Long> results = new TreeMap<>();
+        for (SupportedDatabase database : databases) {
+            Path project = fixtures.resolve(database.name().toLowerCase(Locale.ROOT));
+            writeFixture(project, database, configurations, migrations, tables);
+            List<String> generateTasks = new ArrayList<>();
+            for (int i = 0; i < configurations; i++) {
+                generateTasks.add("generateSchema" + i + "Jooq");
+            }
+            try {
+                // the first build starts the TestKit daemon and is not measured
+                build(project, generateTasks, "--dry-run");
+                record(results, database, "configure", project, build(project, generateTasks, "--dry-run"));
+                record(results, database, "cold", project, build(project, generateTasks, "--rerun-tasks"));
+                build(project, generateTasks, "--rerun-tasks", "-Pbenchmark.reuse=true");
+                record(results, database, "warm", project, build(project, generateTasks, "--rerun-tasks", "-Pbenchmark.reuse=true"));
+            } catch (RuntimeException e) {
+                System.err.println(database + " failed: " + e.getMessage());
+                results.put(key(database, "failed", "build"), 0L);
+            }
+        }
+
+        StringBuilder out = new StringBuilder("# configurations=" + configurations + " migrations=" + migrations
+            + " tables=" + tables + "\n");
+        results.forEach((key, millis) -> out.append(key).append('\t').append(millis).append('\n'));
+        try {
+            Files.createDirectories(report.getParent());
+            Files.writeString(report, out.toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.out.print(out);
+    }
+
+    private static long build(Path project, List<String> tasks, String... extraArguments) {
+        List<String> arguments = new ArrayList<>(tasks);
+        arguments.addAll(List.of(extraArguments));
+        arguments.add("--stacktrace");
+        deleteTree(project.resolve("build/reports/testcontainers-jooq"));
+        long start = System.nanoTime();
+        GradleRunner.create()
+            .withProjectDir(project.toFile())
+            .withPluginClasspath()
+            .withArguments(arguments)
+            .build();
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private static void record(Map<String, Long> results, SupportedDatabase database, String scenario, Path project,
+                               long wallMillis) {
+        results.put(key(database, scenario, "build.wall"), wallMillis);
+        Path reports = project.resolve("build/reports/testcontainers-jooq");
+        if (!Files.isDirectory(reports)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(reports)) {
+            for (Path timings : files.filter(file -> file.getFileName().toString().startsWith("codegen-timings")).toList()) {
+                String json = Files.readString(timings);
+                int start = json.indexOf("\"totals\"");
+                int end = json.indexOf("\"phases\"");
+                Matcher matcher = TOTAL.matcher(json.substring(start, end));
+                while (matcher.find()) {
+                    results.merge(key(database, scenario, matcher.group(1)), Long.parseLong(matcher.group(2)), Long::sum);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String key(SupportedDatabase database, String scenario, String metric) {
+        return database.name().toLowerCase(Locale.ROOT) + '\t' + scenario + '\t' + metric;
+    }
+
+    private static void writeFixture(Path project, SupportedDatabase database, int configurations, int migrations,
+                                     int tables) {
+        deleteTree(project);
+        StringBuilder custom = new StringBuilder();
+        StringBuilder jooq = new StringBuilder();
+        for (int i = 0; i < configurations; i++) {
+            String schema = "schema" + i;
+            custom.append("    ").append(schema).append(" {\n")
+                .append("      inputSchema = '").append(schema).append("'\n")
+                .append("      flywayConfiguration { migrationLocations = ['filesystem:src/main/resources/db/")
+                .append(schema).append("'] }\n")
+                .append("      jooqGenerator { targetPackage = 'bench.").append(schema).append("' }\n")
+                .append("    }\n");
+            jooq.append("    ").append(schema).append(" { jooqConfiguration { generator { database { } } } }\n");
+            writeMigrations(project.resolve("src/main/resources/db/" + schema), migrations, tables);
+        }
+        write(project.resolve("settings.gradle"), "rootProject.name = 'benchmark-" + database.name().toLowerCase(Locale.ROOT) + "'\n");
+        write(project.resolve("build.gradle"), """
+            plugins {
+              id 'java'
+              id 'com.example.testcontainers-flyway-jooq'
+            }
+
+            repositories {
+              mavenCentral()
+            }
+
+            testcontainersJooq {
+              databaseType = com.example.gradle.SupportedDatabase.%s
+              reuse {
+                enabled = providers.gradleProperty('benchmark.reuse').map { it.toBoolean() }.orElse(false)
+              }
+              configurations {
+            %s  }
+            }
+
+            jooq {
+              configurations {
+            %s  }
+            }
+            """.formatted(database.name(), custom, jooq));
+    }
+
+    private static void writeMigrations(Path directory, int migrations, int tables) {
+        StringBuilder create = new StringBuilder();
+        for (int t = 0; t < tables; t++) {
+            create.append("CREATE TABLE t").append(t)
+                .append(" (id BIGINT PRIMARY KEY, name VARCHAR(100) NOT NULL, created_at TIMESTAMP NULL);\n");
+        }
+        write(directory.resolve("V1__tables.sql"), create.toString());
+        for (int m = 2; m <= migrations; m++) {
+            int table = m % Math.max(tables, 1);
+            write(directory.resolve("V" + m + "__column_" + m + ".sql"),
+                "ALTER TABLE t" + table + " ADD COLUMN c" + m + " INTEGER NULL;\n");
+        }
+    }
+
+    private static void write(Path file, String content) {
+        try {
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void deleteTree(Path root) {
+        if (!Files.exists(root)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
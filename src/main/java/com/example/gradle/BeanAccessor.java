@@ -0,0 +1,264 @@
+package com.example.gradle;
+
+import org.gradle.api.InvalidUserDataException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Property access by name, for the option maps of the DSL ({@code databaseOptions}, {@code targetOptions},
+ * Flyway {@code options}) whose keys pick a jOOQ or Flyway property only at run time, and for the
+ * properties of the Gradle plugin objects whose types vary between plugin versions. The getters, setters
+ * and public fields of a class are resolved to method handles once and cached per class, so repeated
+ * access costs a map lookup and a handle invocation. The handles are adapted to erased {@code Object}
+ * signatures up front so every call is an {@code invokeExact}.
+ */
+final class BeanAccessor {
+    private static final MethodType READER = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType WRITER = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final ClassValue<BeanAccessor> CACHE = new ClassValue<>() {
+        @Override
+        protected BeanAccessor computeValue(Class<?> type) {
+            return new BeanAccessor(type);
+        }
+    };
+
+    private record Writer(Class<?> type, MethodHandle handle) {
+    }
+
+    private final Class<?> type;
+    private final Map<String, MethodHandle> readers = new HashMap<>();
+    private final Map<String, List<Writer>> writers = new HashMap<>();
+
+    private BeanAccessor(Class<?> type) {
+        this.type = type;
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        for (Method method : type.getMethods()) {
+            if (Modifier.isStatic(method.getModifiers()) || !Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+                continue;
+            }
+            String name = method.getName();
+            try {
+                if (method.getParameterCount() == 0 && name.startsWith("get") && name.length() > 3) {
+                    readers.putIfAbsent(decapitalize(name.substring(3)), lookup.unreflect(method).asType(READER));
+                } else if (method.getParameterCount() == 0 && name.startsWith("is") && name.length() > 2) {
+                    readers.putIfAbsent(decapitalize(name.substring(2)), lookup.unreflect(method).asType(READER));
+                } else if (method.getParameterCount() == 1 && name.startsWith("set") && name.length() > 3) {
+                    writers.computeIfAbsent(decapitalize(name.substring(3)), key -> new ArrayList<>())
+                        .add(new Writer(method.getParameterTypes()[0], lookup.unreflect(method).asType(WRITER)));
+                }
+            } catch (IllegalAccessException ignored) {
+                // not reachable through the public lookup
+            }
+        }
+        for (Field field : type.getFields()) {
+            if (Modifier.isStatic(field.getModifiers())) {
+                continue;
+            }
+            try {
+                readers.putIfAbsent(field.getName(), lookup.unreflectGetter(field).asType(READER));
+                if (!Modifier.isFinal(field.getModifiers()) && !writers.containsKey(field.getName())) {
+                    writers.put(field.getName(), List.of(new Writer(field.getType(), lookup.unreflectSetter(field).asType(WRITER))));
+                }
+            } catch (IllegalAccessException ignored) {
+                // not reachable through the public lookup
+            }
+        }
+    }
+
+    static BeanAccessor of(Class<?> type) {
+        return CACHE.get(type);
+    }
+
+    /**
+     * Reads {@code property}; a null target reads as null, an unknown property fails.
+     */
+    static Object get(Object target, String property) {
+        if (target == null) {
+            return null;
+        }
+        BeanAccessor accessor = of(target.getClass());
+        MethodHandle reader = accessor.readers.get(property);
+        if (reader == null) {
+            throw new InvalidUserDataException("Unknown property '" + property + "' for " + accessor.type.getName()
+                + ". Known properties: " + new TreeSet<>(accessor.readers.keySet()));
+        }
+        return read(reader, target, property);
+    }
+
+    /**
+     * Reads {@code property}, or returns null when the target is null or has no such property.
+     */
+    static Object getIfPresent(Object target, String property) {
+        if (target == null) {
+            return null;
+        }
+        MethodHandle reader = of(target.getClass()).readers.get(property);
+        return reader == null ? null : read(reader, target, property);
+    }
+
+    private static Object read(MethodHandle reader, Object target, String property) {
+        try {
+            return (Object) reader.invokeExact(target);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to read " + property + " of " + target.getClass().getName(), e);
+        }
+    }
+
+    /**
+     * Writes {@code property}; a null target is ignored, an unknown property or unconvertible value fails.
+     */
+    static void set(Object target, String property, Object value) {
+        if (target != null) {
+            of(target.getClass()).write(target, property, value);
+        }
+    }
+
+    /**
+     * Reads {@code property}, first assigning a new instance of the setter's type when it is null.
+     */
+    static Object getOrCreate(Object target, String property) {
+        Object value = get(target, property);
+        if (value != null || target == null) {
+            return value;
+        }
+        List<Writer> candidates = of(target.getClass()).writers.getOrDefault(property, List.of());
+        for (Writer writer : candidates) {
+            try {
+                Object created = writer.type().getConstructor().newInstance();
+                set(target, property, created);
+                return created;
+            } catch (ReflectiveOperationException ignored) {
+                // try the next overload
+            }
+        }
+        return null;
+    }
+
+    Class<?> writableType(String property) {
+        List<Writer> candidates = writers.get(property);
+        return candidates == null ? null : candidates.get(0).type();
+    }
+
+    boolean isWritable(String property) {
+        return writers.containsKey(property);
+    }
+
+    void requireWritable(Collection<String> properties, String description) {
+        List<String> unknown = properties.stream().filter(property -> !isWritable(property)).sorted().toList();
+        if (!unknown.isEmpty()) {
+            throw new InvalidUserDataException("Unknown " + description + " " + unknown + " for " + type.getName()
+                + ". Known options: " + new TreeSet<>(writers.keySet()));
+        }
+    }
+
+    private void write(Object target, String property, Object value) {
+        List<Writer> candidates = writers.get(property);
+        if (candidates == null) {
+            throw new InvalidUserDataException("Unknown property '" + property + "' for " + type.getName()
+                + ". Known options: " + new TreeSet<>(writers.keySet()));
+        }
+        // an overload that takes the value as it is wins over one that needs a conversion
+        List<Writer> ordered = candidates;
+        if (candidates.size() > 1) {
+            ordered = new ArrayList<>(candidates);
+            ordered.sort(Comparator.comparing(writer -> value == null || !box(writer.type()).isInstance(value)));
+        }
+        IllegalArgumentException failure = null;
+        for (Writer writer : ordered) {
+            Object converted;
+            try {
+                converted = convert(writer.type(), value);
+            } catch (IllegalArgumentException e) {
+                failure = e;
+                continue;
+            }
+            if (converted == null && value != null) {
+                continue;
+            }
+            try {
+                writer.handle().invokeExact(target, converted);
+                return;
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("Failed to set " + property + " of " + type.getName(), e);
+            }
+        }
+        throw new InvalidUserDataException("Cannot convert '" + value + "' for property '" + property + "' of " + type.getName(), failure);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static Object convert(Class<?> targetType, Object value) {
+        if (value == null) {
+            return null;
+        }
+        Class<?> boxed = box(targetType);
+        if (boxed.isInstance(value)) {
+            return value;
+        }
+        if (value instanceof Collection<?> values) {
+            if (List.class.isAssignableFrom(targetType) || targetType == Collection.class) {
+                return new ArrayList<>(values);
+            }
+            if (targetType == String[].class) {
+                return values.stream().map(String::valueOf).toArray(String[]::new);
+            }
+            return null;
+        }
+        String text = value.toString().trim();
+        if (boxed == String.class) {
+            return value.toString();
+        }
+        if (boxed == Boolean.class) {
+            return Boolean.parseBoolean(text);
+        }
+        if (boxed == Integer.class) {
+            return Integer.valueOf(text);
+        }
+        if (boxed == Long.class) {
+            return Long.valueOf(text);
+        }
+        if (targetType.isEnum()) {
+            return Enum.valueOf((Class<? extends Enum>) targetType, text.toUpperCase(Locale.ROOT));
+        }
+        if (targetType == String[].class) {
+            return Arrays.stream(text.split(",")).map(String::trim).filter(s -> !s.isEmpty()).toArray(String[]::new);
+        }
+        if (List.class.isAssignableFrom(targetType)) {
+            return new ArrayList<>(Arrays.stream(text.split(",")).map(String::trim).filter(s -> !s.isEmpty()).toList());
+        }
+        return null;
+    }
+
+    private static Class<?> box(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return type;
+        }
+        return switch (type.getName()) {
+            case "boolean" -> Boolean.class;
+            case "int" -> Integer.class;
+            case "long" -> Long.class;
+            default -> type;
+        };
+    }
+
+    private static String decapitalize(String name) {
+        return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.gradle;
+
+import org.gradle.api.model.ObjectFactory;
+import org.gradle.api.provider.Property;
+
+import javax.inject.Inject;
+import java.time.Duration;
+
+public abstract class BrokerSpec {
+    private final Property<Boolean> enabled;
+    private final Property<Integer> maxConcurrentMigrations;
+    private final Property<Duration> idleTimeout;
+
+    @Inject
+    public BrokerSpec(ObjectFactory objects) {
+        this.enabled = objects.property(Boolean.class).convention(false);
+        this.maxConcurrentMigrations = objects.property(Integer.class).convention(2);
+        this.idleTimeout = objects.property(Duration.class).convention(Duration.ofMinutes(30));
+    }
+
+    public Property<Boolean> getEnabled() { return enabled; }
+    public Property<Integer> getMaxConcurrentMigrations() { return maxConcurrentMigrations; }
+    public Property<Duration> getIdleTimeout() { return idleTimeout; }
+}
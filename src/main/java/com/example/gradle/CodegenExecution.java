@@ -0,0 +1,20 @@
+package com.example.gradle;
+
+public enum CodegenExecution {
+    /**
+     * nu.studer's own task action: a new JVM per generate task.
+     */
+    JAVAEXEC,
+
+    /**
+     * A Gradle worker inside the build daemon, on an isolated classloader of the {@code jooqGenerator}
+     * classpath; no JVM is started.
+     */
+    CLASSLOADER,
+
+    /**
+     * A Gradle worker daemon with the {@code jooqGenerator} classpath. Generate tasks share it, and later
+     * builds in the same Gradle daemon reuse it while it is still warm.
+     */
+    PROCESS
+}
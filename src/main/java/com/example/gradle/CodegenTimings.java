@@ -0,0 +1,126 @@
+package com.example.gradle;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Collects the duration of every phase the plugin drives during one build and renders it as a JSON
+ * report and a short console summary.
+ */
+final class CodegenTimings {
+
+    record Phase(String name, String subject, long startEpochMillis, long durationMillis, Map<String, Long> counters) {
+    }
+
+    private final List<Phase> phases = Collections.synchronizedList(new ArrayList<>());
+
+    <T> T time(String name, String subject, Supplier<T> action) {
+        long startMillis = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            record(name, subject, startMillis, (System.nanoTime() - startNanos) / 1_000_000, Map.of());
+        }
+    }
+
+    void time(String name, String subject, Runnable action) {
+        time(name, subject, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    void record(String name, String subject, long startEpochMillis, long durationMillis, Map<String, Long> counters) {
+        phases.add(new Phase(name, subject, startEpochMillis, Math.max(durationMillis, 0), Map.copyOf(counters)));
+    }
+
+    boolean isEmpty() {
+        return phases.isEmpty();
+    }
+
+    void write(File report) {
+        try {
+            Files.createDirectories(report.getParentFile().toPath());
+            Files.writeString(report.toPath(), toJson());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write " + report, e);
+        }
+    }
+
+    String toJson() {
+        List<Phase> snapshot = snapshot();
+        StringBuilder out = new StringBuilder("{\n  \"generatedAt\": ")
+            .append(quote(Instant.now().toString()))
+            .append(",\n  \"totals\": {");
+        Map<String, Long> totals = totals(snapshot);
+        int index = 0;
+        for (Map.Entry<String, Long> total : totals.entrySet()) {
+            out.append(index++ == 0 ? "\n" : ",\n")
+                .append("    ").append(quote(total.getKey())).append(": ").append(total.getValue());
+        }
+        out.append(totals.isEmpty() ? "},\n" : "\n  },\n").append("  \"phases\": [");
+        for (int i = 0; i < snapshot.size(); i++) {
+            Phase phase = snapshot.get(i);
+            out.append(i == 0 ? "\n" : ",\n")
+                .append("    {\"name\": ").append(quote(phase.name()))
+                .append(", \"subject\": ").append(quote(phase.subject()))
+                .append(", \"start\": ").append(quote(Instant.ofEpochMilli(phase.startEpochMillis()).toString()))
+                .append(", \"durationMillis\": ").append(phase.durationMillis());
+            phase.counters().entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(counter ->
+                out.append(", ").append(quote(counter.getKey())).append(": ").append(counter.getValue()));
+            out.append('}');
+        }
+        return out.append(snapshot.isEmpty() ? "]\n}\n" : "\n  ]\n}\n").toString();
+    }
+
+    List<String> summary() {
+        List<String> lines = new ArrayList<>();
+        totals(snapshot()).forEach((name, millis) -> lines.add(String.format("%-22s %8d ms", name, millis)));
+        return lines;
+    }
+
+    private List<Phase> snapshot() {
+        synchronized (phases) {
+            return new ArrayList<>(phases);
+        }
+    }
+
+    private static Map<String, Long> totals(List<Phase> phases) {
+        Map<String, Long> totals = new LinkedHashMap<>();
+        for (Phase phase : phases) {
+            totals.merge(phase.name(), phase.durationMillis(), Long::sum);
+        }
+        return totals;
+    }
+
+    static String quote(String value) {
+        StringBuilder out = new StringBuilder("\"");
+        for (char c : (value == null ? "" : value).toCharArray()) {
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        return out.append('"').toString();
+    }
+}
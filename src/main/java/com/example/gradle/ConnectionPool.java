@@ -0,0 +1,174 @@
+package com.example.gradle;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Deque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Keeps up to {@code maxIdle} open connections to one JDBC URL for the service's own statements and
+ * for Flyway. Connections are handed out as proxies whose {@code close()} rolls back an open
+ * transaction, restores auto-commit and the catalog and puts the connection back; beyond
+ * {@code maxIdle} idle connections it is really closed. Nothing limits how many are in use at once,
+ * since Flyway may hold two per migration.
+ */
+final class ConnectionPool implements DataSource, AutoCloseable {
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int maxIdle;
+    private final Deque<Connection> idle = new LinkedBlockingDeque<>();
+    private final AtomicInteger opened = new AtomicInteger();
+    private final AtomicInteger borrowed = new AtomicInteger();
+    private volatile boolean closed;
+
+    ConnectionPool(String url, String username, String password, int maxIdle) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.maxIdle = maxIdle;
+    }
+
+    int opened() {
+        return opened.get();
+    }
+
+    int borrowed() {
+        return borrowed.get();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        borrowed.incrementAndGet();
+        Connection raw;
+        while ((raw = idle.pollFirst()) != null) {
+            if (!raw.isClosed()) {
+                return lease(raw);
+            }
+        }
+        raw = DriverManager.getConnection(url, username, password);
+        opened.incrementAndGet();
+        return lease(raw);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection();
+    }
+
+    private Connection lease(Connection raw) throws SQLException {
+        String catalog = raw.getCatalog();
+        InvocationHandler handler = new InvocationHandler() {
+            private boolean released;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close" -> {
+                        if (!released) {
+                            released = true;
+                            release(raw, catalog);
+                        }
+                        return null;
+                    }
+                    case "isClosed" -> {
+                        return released || raw.isClosed();
+                    }
+                    default -> {
+                        if (released) {
+                            throw new SQLException("Connection has been returned to the pool");
+                        }
+                        try {
+                            return method.invoke(raw, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }
+                }
+            }
+        };
+        return (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(), new Class<?>[] {Connection.class}, handler);
+    }
+
+    private void release(Connection raw, String catalog) {
+        try {
+            if (!raw.getAutoCommit()) {
+                raw.rollback();
+                raw.setAutoCommit(true);
+            }
+            if (catalog != null && !catalog.equals(raw.getCatalog())) {
+                raw.setCatalog(catalog);
+            }
+            if (!closed && idle.size() < maxIdle) {
+                idle.offerFirst(raw);
+                return;
+            }
+        } catch (SQLException e) {
+            // not reusable; close it below
+        }
+        closeQuietly(raw);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Connection raw;
+        while ((raw = idle.pollFirst()) != null) {
+            closeQuietly(raw);
+        }
+    }
+
+    private static void closeQuietly(Connection raw) {
+        try {
+            raw.close();
+        } catch (SQLException ignored) {
+            // the server is going away anyway
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return null;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return 0;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
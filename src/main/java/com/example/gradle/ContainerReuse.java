@@ -0,0 +1,278 @@
+package com.example.gradle;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.model.Container;
+import com.github.dockerjava.api.model.ContainerPort;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.testcontainers.DockerClientFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Long-lived database containers shared by consecutive builds. Containers are found again by a label
+ * derived from the database type, image, credentials and primary database; a lease file per container in
+ * the Gradle user home records when a build last used it, and containers idle for longer than their
+ * timeout are removed. A build holds the key's lock file while it uses the container, so no other build
+ * attaches to it (and resets its databases) or removes it in the meantime.
+ */
+final class ContainerReuse {
+    private static final Logger LOGGER = Logging.getLogger(ContainerReuse.class);
+
+    private static final String LABEL_PREFIX = "com.example.testcontainers-jooq.";
+    private static final String KEY_LABEL = LABEL_PREFIX + "reuse-key";
+    private static final String DATABASE_LABEL = LABEL_PREFIX + "primary-database";
+    private static final String IDLE_TIMEOUT_LABEL = LABEL_PREFIX + "idle-timeout-seconds";
+    private static final String BROKER_LABEL = LABEL_PREFIX + "broker-directory";
+
+    private static final ScheduledExecutorService REAPER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "testcontainers-jooq-reaper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    record Endpoint(String containerId, String jdbcUrl) {
+    }
+
+    private final SupportedDatabase dbType;
+    private final String key;
+    private final String primaryName;
+    private final File leaseDirectory;
+    private final Duration idleTimeout;
+    private final File brokerDirectory;
+    private FileChannel lockChannel;
+
+    ContainerReuse(SupportedDatabase dbType, String image, String username, String password, String primaryName,
+                   File stateDirectory, Duration idleTimeout) {
+        this(dbType, image, username, password, primaryName, stateDirectory, idleTimeout, null, null);
+    }
+
+    /**
+     * A {@code scope} keeps containers used for another purpose (such as the {@link HostBroker}'s shared
+     * servers) apart from the ones of plain reuse. Containers with a {@code brokerDirectory} are only
+     * removed through {@link HostBroker#whenUnused(File, Duration, Runnable)}.
+     */
+    ContainerReuse(SupportedDatabase dbType, String image, String username, String password, String primaryName,
+                   File stateDirectory, Duration idleTimeout, String scope, File brokerDirectory) {
+        this.dbType = dbType;
+        String material = String.join("\n", dbType.name(), image, username, password, primaryName);
+        this.key = sha256(scope == null ? material : material + "\n" + scope).substring(0, 16);
+        this.primaryName = primaryName;
+        this.leaseDirectory = new File(stateDirectory, "reuse");
+        this.idleTimeout = idleTimeout;
+        this.brokerDirectory = brokerDirectory;
+    }
+
+    Map<String, String> labels() {
+        Map<String, String> labels = new HashMap<>(Map.of(
+            KEY_LABEL, key,
+            DATABASE_LABEL, primaryName,
+            IDLE_TIMEOUT_LABEL, Long.toString(idleTimeout.toSeconds())));
+        if (brokerDirectory != null) {
+            labels.put(BROKER_LABEL, brokerDirectory.getAbsolutePath());
+        }
+        return labels;
+    }
+
+    Optional<Endpoint> find(String username, String password) {
+        List<Container> running = DockerClientFactory.instance().client().listContainersCmd()
+            .withLabelFilter(Map.of(KEY_LABEL, key))
+            .withStatusFilter(List.of("running"))
+            .exec();
+        String host = DockerClientFactory.instance().dockerHostIpAddress();
+        for (Container candidate : running) {
+            Integer port = publicPort(candidate);
+            if (port == null || !primaryName.equals(candidate.getLabels().get(DATABASE_LABEL))) {
+                continue;
+            }
+            String jdbcUrl = dbType.jdbcUrl(host, port, primaryName);
+            if (isHealthy(jdbcUrl, username, password)) {
+                return Optional.of(new Endpoint(candidate.getId(), jdbcUrl));
+            }
+            LOGGER.info("Removing unhealthy reusable container {}", candidate.getId());
+            remove(candidate.getId());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Takes this key's lock, held until {@link #release(String)}. Returns false while another build holds
+     * it: attaching drops and recreates the databases that build is working in.
+     */
+    synchronized boolean tryLock() {
+        try {
+            Files.createDirectories(leaseDirectory.toPath());
+            FileChannel channel = FileChannel.open(lockFile(key).toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            if (tryLock(channel) == null) {
+                channel.close();
+                return false;
+            }
+            // released when the channel closes
+            lockChannel = channel;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to lock " + lockFile(key), e);
+        }
+    }
+
+    /**
+     * Records the last use of the container (if it started), schedules its removal once idle and lets go
+     * of this key's lock.
+     */
+    synchronized void release(String containerId) {
+        if (containerId != null) {
+            touch(containerId);
+            REAPER.schedule(() -> reapIfIdle(containerId, key, idleTimeout, System.currentTimeMillis(), brokerDirectory),
+                idleTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        if (lockChannel != null) {
+            try {
+                lockChannel.close();
+            } catch (IOException e) {
+                LOGGER.info("Could not release {}: {}", lockFile(key), e.getMessage());
+            }
+            lockChannel = null;
+        }
+    }
+
+    void touch(String containerId) {
+        try {
+            Files.createDirectories(leaseDirectory.toPath());
+            Files.writeString(leaseFile(containerId).toPath(), Instant.now().toString());
+        } catch (IOException e) {
+            LOGGER.info("Could not write lease for container {}: {}", containerId, e.getMessage());
+        }
+    }
+
+    /**
+     * Removes every reusable container, regardless of key, whose lease is older than its idle timeout.
+     */
+    void reapIdle() {
+        List<Container> all = DockerClientFactory.instance().client().listContainersCmd()
+            .withLabelFilter(List.of(KEY_LABEL))
+            .withShowAll(true)
+            .exec();
+        for (Container candidate : all) {
+            String timeout = candidate.getLabels().get(IDLE_TIMEOUT_LABEL);
+            Duration containerTimeout = timeout == null ? idleTimeout : Duration.ofSeconds(Long.parseLong(timeout));
+            long fallback = candidate.getCreated() == null ? 0L : candidate.getCreated() * 1000;
+            String broker = candidate.getLabels().get(BROKER_LABEL);
+            reapIfIdle(candidate.getId(), candidate.getLabels().get(KEY_LABEL), containerTimeout, fallback,
+                broker == null ? null : new File(broker));
+        }
+    }
+
+    private void reapIfIdle(String containerId, String containerKey, Duration timeout, long fallbackLastUsed, File broker) {
+        File lease = leaseFile(containerId);
+        long lastUsed = lease.isFile() ? lease.lastModified() : fallbackLastUsed;
+        if (System.currentTimeMillis() - lastUsed < timeout.toMillis()) {
+            return;
+        }
+        if (broker == null) {
+            if (isLocked(containerKey)) {
+                // a build is using it; its lease only goes stale when that build runs for longer than the timeout
+                return;
+            }
+            LOGGER.info("Removing idle reusable container {}", containerId);
+            remove(containerId);
+            return;
+        }
+        // a shared server outlives any single build's lease; it goes once no build uses it any more
+        HostBroker.whenUnused(broker, timeout, () -> {
+            LOGGER.info("Removing idle shared server {}", containerId);
+            remove(containerId);
+        });
+    }
+
+    private void remove(String containerId) {
+        try {
+            DockerClient client = DockerClientFactory.instance().client();
+            client.removeContainerCmd(containerId).withForce(true).withRemoveVolumes(true).exec();
+        } catch (RuntimeException e) {
+            LOGGER.info("Could not remove container {}: {}", containerId, e.getMessage());
+        }
+        leaseFile(containerId).delete();
+    }
+
+    private Integer publicPort(Container container) {
+        if (container.getPorts() == null) {
+            return null;
+        }
+        for (ContainerPort port : container.getPorts()) {
+            if (port.getPrivatePort() != null && port.getPrivatePort() == dbType.getPort() && port.getPublicPort() != null) {
+                return port.getPublicPort();
+            }
+        }
+        return null;
+    }
+
+    private static boolean isHealthy(String jdbcUrl, String username, String password) {
+        try (Connection conn = DriverManager.getConnection(jdbcUrl, username, password)) {
+            return conn.isValid(5);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private boolean isLocked(String containerKey) {
+        File lockFile = lockFile(containerKey);
+        if (!lockFile.isFile()) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.WRITE)) {
+            return tryLock(channel) == null;
+        } catch (IOException e) {
+            // cannot tell; keep the container
+            return true;
+        }
+    }
+
+    private static FileLock tryLock(FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // held by this daemon
+            return null;
+        }
+    }
+
+    private File leaseFile(String containerId) {
+        return new File(leaseDirectory, containerId + ".lease");
+    }
+
+    private File lockFile(String containerKey) {
+        return new File(leaseDirectory, containerKey + ".lock");
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.example.gradle;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.testcontainers.containers.JdbcDatabaseContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.utility.DockerImageName;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * A {@link DatabaseServer} in a Testcontainers container. Depending on the service's settings it
+ * continues the container of the previous iteration of a continuous build ({@link WarmContainers}),
+ * attaches to a reusable container ({@link ContainerReuse}) or starts from a migrated snapshot
+ * ({@link ContainerSnapshots}), and when stopped parks, releases or commits the container accordingly.
+ * With a {@link HostBroker} it is the host's shared server, found or started under the broker's lock.
+ */
+final class ContainerServer implements DatabaseServer {
+    private static final Logger LOGGER = Logging.getLogger(ContainerServer.class);
+
+    private final RdbmsContainerService.Params params;
+    private final SupportedDatabase dbType;
+    private final String image;
+    private final String username;
+    private final String password;
+    private final String primaryName;
+    private final HostBroker broker;
+    private final CodegenTimings timings;
+    private final Supplier<Set<String>> initializedNames;
+    private final Map<String, String> appliedMigrations = new ConcurrentSkipListMap<>();
+    private final AtomicInteger migrationsExecuted = new AtomicInteger();
+    private JdbcDatabaseContainer<?> container;
+    private ContainerReuse reuse;
+    private ContainerSnapshots snapshots;
+    private String warmKey;
+    private Set<String> warmNames;
+    private boolean attached;
+    private String containerId;
+    private String jdbcUrl;
+
+    /**
+     * {@code initializedNames} supplies the databases/schemas the service provisioned, which a container
+     * parked for the next iteration of a continuous build keeps.
+     */
+    ContainerServer(RdbmsContainerService.Params params, String primaryName, HostBroker broker, CodegenTimings timings,
+                    Supplier<Set<String>> initializedNames) {
+        this.params = params;
+        this.dbType = params.getDatabaseType().get();
+        this.image = params.getDockerImage().isPresent() ? params.getDockerImage().get() : dbType.getDefaultImage();
+        this.username = params.getUsername().get();
+        this.password = params.getPassword().get();
+        this.primaryName = primaryName;
+        this.broker = broker;
+        this.timings = timings;
+        this.initializedNames = initializedNames;
+    }
+
+    @Override
+    public void start() {
+        try {
+            startOrAttach();
+        } catch (RuntimeException e) {
+            if (reuse != null) {
+                reuse.release(null);
+            }
+            throw e;
+        }
+    }
+
+    private void startOrAttach() {
+        if (broker == null && params.getContinuousBuild().getOrElse(false)) {
+            warmKey = String.join("\n", dbType.name(), image, username, password, primaryName);
+            Optional<WarmContainers.Warm> parked = WarmContainers.take(warmKey);
+            if (parked.isPresent()) {
+                LOGGER.info("Continuing with warm {} container {}", dbType, parked.get().containerId());
+                container = parked.get().container();
+                reuse = parked.get().reuse();
+                containerId = parked.get().containerId();
+                jdbcUrl = parked.get().jdbcUrl();
+                warmNames = parked.get().initializedNames();
+                return;
+            }
+        }
+
+        File stateDirectory = params.getStateDirectory().get().getAsFile();
+        if (broker != null) {
+            reuse = new ContainerReuse(dbType, image, username, password, primaryName, stateDirectory,
+                params.getBrokerIdleTimeout().getOrElse(Duration.ofMinutes(30)), HostBroker.SCOPE, broker.directory());
+        } else if (params.getReuseEnabled().getOrElse(false)) {
+            reuse = new ContainerReuse(dbType, image, username, password, primaryName, stateDirectory,
+                params.getReuseIdleTimeout().getOrElse(Duration.ofMinutes(30)));
+            if (!reuse.tryLock()) {
+                LOGGER.lifecycle("The reusable {} container is in use by another build; starting one for this build only", dbType);
+                reuse = null;
+            }
+        }
+        if (reuse != null) {
+            reuse.reapIdle();
+            Optional<ContainerReuse.Endpoint> existing = timings.time("container.attach", image, () -> reuse.find(username, password));
+            if (existing.isPresent()) {
+                LOGGER.lifecycle("Reusing {} container {}", dbType, existing.get().containerId());
+                containerId = existing.get().containerId();
+                jdbcUrl = existing.get().jdbcUrl();
+                attached = true;
+                reuse.touch(containerId);
+                return;
+            }
+        }
+
+        Optional<ContainerSnapshots.Snapshot> snapshot = Optional.empty();
+        if (params.getSnapshotsEnabled().getOrElse(false)) {
+            snapshots = new ContainerSnapshots(dbType, image, username, password, primaryName,
+                params.getRootDirectory().get().getAsFile());
+            snapshot = snapshots.findCompatible(snapshots.fingerprint(params.getMigrationDirectories().getFiles()));
+            snapshot.ifPresent(s -> {
+                LOGGER.lifecycle("Starting {} from snapshot {} ({} migrations)", dbType, s.reference(), s.migrations().size());
+                appliedMigrations.putAll(s.migrations());
+            });
+        }
+        DockerImageName imageName = DockerImageName.parse(snapshot.map(ContainerSnapshots.Snapshot::reference).orElse(image));
+
+        ReadinessStrategy strategy = params.getReadinessStrategy().getOrElse(ReadinessStrategy.JDBC);
+        JdbcReadiness readiness = strategy == ReadinessStrategy.TESTCONTAINERS ? null : new JdbcReadiness(strategy,
+            params.getReadinessInitialBackoff().getOrElse(Duration.ofMillis(20)),
+            params.getReadinessMaxBackoff().getOrElse(Duration.ofMillis(200)),
+            params.getReadinessTimeout().getOrElse(Duration.ofMinutes(2)));
+        switch (dbType) {
+            case POSTGRES -> container = new JdbcReadiness.Postgres(imageName.asCompatibleSubstituteFor("postgres"), readiness)
+                .withDatabaseName(primaryName)
+                .withUsername(username)
+                .withPassword(password);
+            case MYSQL -> container = new JdbcReadiness.MySql(imageName.asCompatibleSubstituteFor("mysql"), readiness)
+                .withDatabaseName(primaryName)
+                .withUsername(username)
+                .withPassword(password);
+            default -> container = new JdbcReadiness.MariaDb(imageName.asCompatibleSubstituteFor("mariadb"), readiness)
+                .withDatabaseName(primaryName)
+                .withUsername(username)
+                .withPassword(password);
+        }
+        ServerTuning.apply(container, dbType, params.getPerformanceProfile().getOrElse(PerformanceProfile.STANDARD),
+            snapshots != null ? ContainerSnapshots.dataDirectory(dbType) : null);
+        if (readiness == null && snapshot.isPresent() && dbType == SupportedDatabase.POSTGRES) {
+            // an initialized data directory skips initdb and its restart, so the ready message is logged once
+            container.waitingFor(Wait.forLogMessage(".*database system is ready to accept connections.*\\s", 1));
+        }
+        if (reuse != null) {
+            container.withLabels(reuse.labels()).withReuse(true);
+        }
+        JdbcDatabaseContainer<?> starting = container;
+        timings.time("container.pull", imageName.asCanonicalNameString(), starting::getDockerImageName);
+        long startMillis = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        container.start();
+        recordStartPhases(imageName.asCanonicalNameString(), startMillis, (System.nanoTime() - startNanos) / 1_000_000,
+            readiness == null ? Map.of() : Map.of("attempts", (long) readiness.attempts()));
+        containerId = container.getContainerId();
+        jdbcUrl = container.getJdbcUrl();
+        if (reuse != null) {
+            reuse.touch(containerId);
+        }
+    }
+
+    @Override
+    public String jdbcUrl() {
+        return jdbcUrl;
+    }
+
+    @Override
+    public String id() {
+        return containerId;
+    }
+
+    @Override
+    public boolean reused() {
+        return attached;
+    }
+
+    @Override
+    public boolean warm() {
+        return warmNames != null;
+    }
+
+    @Override
+    public Set<String> initializedNames() {
+        return warmNames == null ? Set.of() : warmNames;
+    }
+
+    @Override
+    public void migrated(List<File> directories, int applied) {
+        migrationsExecuted.addAndGet(applied);
+        if (snapshots != null) {
+            appliedMigrations.putAll(snapshots.fingerprint(directories));
+        }
+    }
+
+    /**
+     * Renews the lease of a reused or shared container, for builds that hold it for long.
+     */
+    void touchLease() {
+        if (reuse != null && containerId != null) {
+            reuse.touch(containerId);
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (snapshots != null) {
+            saveSnapshot();
+        }
+        if (warmKey != null && containerId != null) {
+            // a reused container stays locked while parked, and gets its lease back when the park ends
+            WarmContainers.park(warmKey, new WarmContainers.Warm(container, reuse, containerId, jdbcUrl,
+                Set.copyOf(initializedNames.get())), params.getContinuousIdleTimeout().getOrElse(Duration.ofMinutes(30)));
+        } else if (reuse != null) {
+            reuse.release(containerId);
+        } else if (container != null) {
+            timings.time("container.stop", containerId, container::stop);
+        }
+    }
+
+    private void saveSnapshot() {
+        try {
+            if (migrationsExecuted.get() > 0) {
+                flushToDisk();
+                String reference = timings.time("snapshot.commit", containerId, () -> snapshots.commit(containerId, appliedMigrations));
+                LOGGER.lifecycle("Saved migrated database snapshot {}", reference);
+            }
+            snapshots.evict(params.getMaxSnapshots().getOrElse(3), params.getMaxSnapshotAge().getOrElse(Duration.ofDays(14)));
+        } catch (RuntimeException e) {
+            LOGGER.warn("Failed to save database snapshot: {}", e.getMessage());
+        }
+    }
+
+    private void flushToDisk() {
+        String sql = dbType == SupportedDatabase.POSTGRES ? "CHECKPOINT" : "FLUSH TABLES";
+        try (Connection conn = DriverManager.getConnection(jdbcUrl, username, password);
+             Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        } catch (SQLException e) {
+            // best effort: the engines recover committed work on start either way
+            LOGGER.info("Could not run {} before snapshot: {}", sql, e.getMessage());
+        }
+    }
+
+    private void recordStartPhases(String image, long startMillis, long totalMillis, Map<String, Long> readinessCounters) {
+        // the daemon's start timestamp splits container.start() into booting and waiting for readiness
+        long runningAfter = totalMillis;
+        try {
+            Instant startedAt = Instant.parse(container.getContainerInfo().getState().getStartedAt());
+            runningAfter = Math.min(Math.max(startedAt.toEpochMilli() - startMillis, 0), totalMillis);
+        } catch (RuntimeException e) {
+            LOGGER.debug("Could not read container start time", e);
+        }
+        timings.record("container.start", image, startMillis, runningAfter, Map.of());
+        timings.record("container.readiness", image, startMillis + runningAfter, totalMillis - runningAfter, readinessCounters);
+    }
+}
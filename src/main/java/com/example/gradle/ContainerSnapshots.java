@@ -0,0 +1,226 @@
+package com.example.gradle;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.model.Image;
+import org.flywaydb.core.api.MigrationVersion;
+import org.testcontainers.DockerClientFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Local Docker images of migrated database containers. Each image records the fingerprint of every
+ * migration it contains, so a later build can start from any snapshot whose migrations are still
+ * unchanged on disk and let Flyway apply only the newer ones.
+ */
+final class ContainerSnapshots {
+    static final String REPOSITORY = "testcontainers-jooq-snapshot";
+
+    private static final String LABEL_PREFIX = "com.example.testcontainers-jooq.";
+    private static final String KEY_LABEL = LABEL_PREFIX + "snapshot-key";
+    private static final String MIGRATIONS_LABEL = LABEL_PREFIX + "migrations";
+    private static final String DATA_DIRECTORY = "/snapshot-data";
+
+    record Snapshot(String imageId, String reference, long createdEpochSeconds, Map<String, String> migrations) {
+    }
+
+    private final SupportedDatabase dbType;
+    private final String key;
+    private final Path rootDirectory;
+
+    ContainerSnapshots(SupportedDatabase dbType, String baseImage, String username, String password,
+                       String primaryName, File rootDirectory) {
+        this.dbType = dbType;
+        this.key = sha256(String.join("\n", dbType.name(), baseImage, username, password, primaryName)).substring(0, 16);
+        this.rootDirectory = rootDirectory.toPath().toAbsolutePath().normalize();
+    }
+
+    /**
+     * The stock images declare their data directory as a VOLUME, which {@code docker commit} does not
+     * capture, so the data directory is moved into the container filesystem (see {@link ServerTuning}).
+     */
+    static String dataDirectory(SupportedDatabase dbType) {
+        return DATA_DIRECTORY + "/" + dbType.name().toLowerCase(Locale.ROOT);
+    }
+
+    Map<String, String> fingerprint(Collection<File> directories) {
+        Map<String, String> out = new TreeMap<>();
+        for (File directory : directories) {
+            if (!directory.isDirectory()) {
+                continue;
+            }
+            try (Stream<Path> files = Files.walk(directory.toPath())) {
+                for (Path file : files.filter(Files::isRegularFile).sorted().toList()) {
+                    out.put(relativize(file), sha256(file));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to fingerprint migrations in " + directory, e);
+            }
+        }
+        return out;
+    }
+
+    Optional<Snapshot> findCompatible(Map<String, String> current) {
+        return list().stream()
+            .filter(snapshot -> isCompatible(snapshot.migrations(), current))
+            .max(Comparator.<Snapshot>comparingInt(s -> s.migrations().size())
+                .thenComparingLong(Snapshot::createdEpochSeconds));
+    }
+
+    String commit(String containerId, Map<String, String> migrations) {
+        String encoded = encode(migrations);
+        String tag = dbType.name().toLowerCase(Locale.ROOT) + "-" + key + "-" + sha256(encoded).substring(0, 12);
+        DockerClient client = DockerClientFactory.instance().client();
+        client.commitCmd(containerId)
+            .withRepository(REPOSITORY)
+            .withTag(tag)
+            .withLabels(Map.of(KEY_LABEL, key, MIGRATIONS_LABEL, encoded))
+            .exec();
+        return REPOSITORY + ":" + tag;
+    }
+
+    void evict(int maxSnapshots, Duration maxAge) {
+        long oldestAllowed = Instant.now().minus(maxAge).getEpochSecond();
+        List<Snapshot> newestFirst = new ArrayList<>(list());
+        newestFirst.sort(Comparator.comparingLong(Snapshot::createdEpochSeconds).reversed());
+        DockerClient client = DockerClientFactory.instance().client();
+        for (int i = 0; i < newestFirst.size(); i++) {
+            Snapshot snapshot = newestFirst.get(i);
+            if (i >= Math.max(maxSnapshots, 1) || snapshot.createdEpochSeconds() < oldestAllowed) {
+                client.removeImageCmd(snapshot.imageId()).withForce(true).exec();
+            }
+        }
+    }
+
+    private List<Snapshot> list() {
+        List<Image> images = DockerClientFactory.instance().client().listImagesCmd()
+            .withLabelFilter(Map.of(KEY_LABEL, key))
+            .exec();
+        List<Snapshot> out = new ArrayList<>();
+        for (Image image : images) {
+            String[] tags = image.getRepoTags();
+            if (tags == null || tags.length == 0 || image.getLabels() == null) {
+                continue;
+            }
+            Long created = image.getCreated();
+            out.add(new Snapshot(image.getId(), tags[0], created == null ? 0L : created,
+                decode(image.getLabels().getOrDefault(MIGRATIONS_LABEL, ""))));
+        }
+        return out;
+    }
+
+    /**
+     * A snapshot stays usable while every migration it applied is unchanged and every migration added since
+     * sorts after the ones it applied; Flyway would reject an added version below its latest as out of order.
+     */
+    static boolean isCompatible(Map<String, String> snapshot, Map<String, String> current) {
+        MigrationVersion latest = null;
+        for (Map.Entry<String, String> entry : snapshot.entrySet()) {
+            String currentHash = current.get(entry.getKey());
+            if (currentHash == null) {
+                return false;
+            }
+            // Flyway re-applies changed repeatable migrations, so only versioned edits invalidate a snapshot.
+            boolean repeatable = Path.of(entry.getKey()).getFileName().toString().startsWith("R__");
+            if (!repeatable && !currentHash.equals(entry.getValue())) {
+                return false;
+            }
+            MigrationVersion version = version(entry.getKey());
+            if (version != null && (latest == null || version.isNewerThan(latest))) {
+                latest = version;
+            }
+        }
+        if (latest == null) {
+            return true;
+        }
+        for (String migration : current.keySet()) {
+            MigrationVersion version = snapshot.containsKey(migration) ? null : version(migration);
+            if (version != null && !version.isNewerThan(latest)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The version of a {@code V<version>__<description>} migration, or null for any other file.
+     */
+    private static MigrationVersion version(String migration) {
+        String name = Path.of(migration).getFileName().toString();
+        int separator = name.indexOf("__");
+        if (!name.startsWith("V") || separator < 2) {
+            return null;
+        }
+        try {
+            return MigrationVersion.fromVersion(name.substring(1, separator));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private String relativize(Path file) {
+        Path absolute = file.toAbsolutePath().normalize();
+        Path relative = absolute.startsWith(rootDirectory) ? rootDirectory.relativize(absolute) : absolute;
+        return relative.toString().replace(File.separatorChar, '/');
+    }
+
+    private static String encode(Map<String, String> migrations) {
+        StringBuilder out = new StringBuilder();
+        new TreeMap<>(migrations).forEach((path, hash) -> out.append(path).append('=').append(hash).append('\n'));
+        return out.toString();
+    }
+
+    private static Map<String, String> decode(String encoded) {
+        Map<String, String> out = new TreeMap<>();
+        for (String line : encoded.split("\n")) {
+            int separator = line.lastIndexOf('=');
+            if (separator > 0) {
+                out.put(line.substring(0, separator), line.substring(separator + 1));
+            }
+        }
+        return out;
+    }
+
+    static String sha256(String value) {
+        return HexFormat.of().formatHex(digest().digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    static String sha256(Path file) throws IOException {
+        MessageDigest digest = digest();
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.gradle;
+
+public enum DatabaseBackend {
+    /**
+     * A Testcontainers container of {@code dockerImage}; needs a Docker daemon.
+     */
+    TESTCONTAINERS,
+
+    /**
+     * A server process started from a local installation (see {@link EmbeddedSpec}); no Docker needed.
+     */
+    EMBEDDED
+}
@@ -0,0 +1,58 @@
+package com.example.gradle;
+
+import java.io.File;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The database server behind {@link RdbmsContainerService}: a Testcontainers container
+ * ({@link ContainerServer}) or a process of a local installation ({@link EmbeddedServer}).
+ */
+interface DatabaseServer {
+
+    void start();
+
+    /**
+     * The JDBC URL of the primary database, once started.
+     */
+    String jdbcUrl();
+
+    /**
+     * A container or process ID, for logs and timings.
+     */
+    String id();
+
+    /**
+     * Stops the server, or hands it on to a later build if it is kept.
+     */
+    void stop();
+
+    /**
+     * Whether the server was kept from an earlier build, so its databases hold whatever that build left
+     * and have to be reset.
+     */
+    default boolean reused() {
+        return false;
+    }
+
+    /**
+     * Whether the server continues an earlier iteration of a continuous build: its databases are still
+     * migrated, see {@link #initializedNames()}.
+     */
+    default boolean warm() {
+        return false;
+    }
+
+    /**
+     * The databases/schemas a {@link #warm()} server already provisioned.
+     */
+    default Set<String> initializedNames() {
+        return Set.of();
+    }
+
+    /**
+     * Called after Flyway applied {@code applied} migrations from {@code directories}.
+     */
+    default void migrated(List<File> directories, int applied) {
+    }
+}
@@ -0,0 +1,503 @@
+package com.example.gradle;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+
+/**
+ * A database server process launched from a local PostgreSQL, MySQL or MariaDB installation instead
+ * of a container. The initialized data directory is created once per installation and user under the
+ * state directory and copied for every start, so a start costs a directory copy and the server boot.
+ * A shutdown hook stops the server with the Gradle daemon, and a record under the state directory lets
+ * the next start clean up after a daemon that was killed before it could.
+ */
+final class EmbeddedServer implements DatabaseServer {
+    private static final Logger LOGGER = Logging.getLogger(EmbeddedServer.class);
+    private static final String HOST = "127.0.0.1";
+    private static final long READY_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(60);
+
+    private record Binaries(Path home, Path server, Path initializer) {
+    }
+
+    private final SupportedDatabase dbType;
+    private final File installDirectory;
+    private final String username;
+    private final String password;
+    private final String primaryName;
+    private final File stateDirectory;
+    private final PerformanceProfile profile;
+    private final CodegenTimings timings;
+    private Path workDirectory;
+    private Process process;
+    private Path record;
+    private Thread cleanup;
+    private String jdbcUrl;
+
+    EmbeddedServer(SupportedDatabase dbType, File installDirectory, String username, String password, String primaryName,
+                   File stateDirectory, PerformanceProfile profile, CodegenTimings timings) {
+        this.dbType = dbType;
+        this.installDirectory = installDirectory;
+        this.username = username;
+        this.password = password;
+        this.primaryName = primaryName;
+        this.stateDirectory = stateDirectory;
+        this.profile = profile;
+        this.timings = timings;
+    }
+
+    @Override
+    public String jdbcUrl() {
+        return jdbcUrl;
+    }
+
+    @Override
+    public String id() {
+        return "pid " + process.pid();
+    }
+
+    @Override
+    public void start() {
+        if (dbType == SupportedDatabase.POSTGRES && isRoot()) {
+            throw new IllegalStateException("The embedded PostgreSQL cannot run as root: initdb and postgres refuse to. "
+                + "Run Gradle as an unprivileged user, or use testcontainersJooq.backend = TESTCONTAINERS.");
+        }
+        Path embeddedState = stateDirectory.toPath().resolve("embedded");
+        cleanUpAbandoned(embeddedState.resolve("running"));
+        Binaries binaries = locate(dbType, installDirectory);
+        Path template = embeddedState.resolve(templateKey(dbType, binaries, username));
+        if (!Files.isDirectory(template)) {
+            timings.time("embedded.initialize", binaries.home().toString(), () -> initialize(dbType, binaries, username, template));
+        }
+
+        Path work;
+        try {
+            work = Files.createTempDirectory("testcontainers-jooq-" + dbType.name().toLowerCase(Locale.ROOT));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create a data directory for the embedded " + dbType, e);
+        }
+        Path data = work.resolve("data");
+        timings.time("embedded.copy", template.toString(), () -> copyTree(template, data));
+
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(binaries.server().toString());
+        if (dbType == SupportedDatabase.POSTGRES) {
+            setOwnerOnly(data);
+            command.addAll(List.of("-D", data.toString(), "-p", Integer.toString(port),
+                "-c", "listen_addresses=" + HOST, "-c", "unix_socket_directories=" + work, "-c", "fsync=off"));
+        } else {
+            Path initFile = work.resolve("init.sql");
+            writeString(initFile, initScript(username, password, primaryName));
+            command.addAll(List.of("--no-defaults", "--basedir=" + binaries.home(), "--datadir=" + data,
+                "--port=" + port, "--bind-address=" + HOST, "--socket=" + work.resolve("mysqld.sock"),
+                "--pid-file=" + work.resolve("mysqld.pid"), "--init-file=" + initFile));
+            if (dbType == SupportedDatabase.MYSQL) {
+                command.add("--mysqlx=OFF");
+                command.add("--local-infile=1");
+            }
+            if (isRoot()) {
+                command.add("--user=root");
+            }
+        }
+        command.addAll(ServerTuning.serverArguments(dbType, profile));
+
+        long startMillis = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        Process process;
+        try {
+            process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(work.resolve("server.log").toFile())
+                .start();
+        } catch (IOException e) {
+            deleteTree(work);
+            throw new UncheckedIOException("Failed to launch " + binaries.server(), e);
+        }
+
+        this.workDirectory = work;
+        this.process = process;
+        this.jdbcUrl = dbType.jdbcUrl(HOST, port, primaryName);
+        this.cleanup = new Thread(() -> {
+            destroy(process.toHandle());
+            deleteTree(work);
+            deleteFile(record);
+        }, "testcontainers-jooq-embedded-cleanup");
+        Runtime.getRuntime().addShutdownHook(cleanup);
+        try {
+            record = writeRecord(embeddedState.resolve("running"), ProcessHandle.current(), process.toHandle(), work);
+            if (dbType == SupportedDatabase.POSTGRES) {
+                String adminUrl = dbType.jdbcUrl(HOST, port, "postgres");
+                awaitReady(process, adminUrl, username, password, work);
+                execute(adminUrl, username, password, "CREATE DATABASE \"" + primaryName.replace("\"", "\"\"") + "\"");
+            } else {
+                awaitReady(process, jdbcUrl, username, password, work);
+            }
+        } catch (RuntimeException e) {
+            stop();
+            throw e;
+        }
+        timings.record("embedded.start", binaries.server().toString(), startMillis, (System.nanoTime() - startNanos) / 1_000_000, Map.of());
+        LOGGER.info("Started embedded {} on port {} (data in {})", dbType, port, data);
+    }
+
+    @Override
+    public void stop() {
+        timings.time("embedded.stop", id(), () -> {
+            process.destroy();
+            try {
+                if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                    process.destroyForcibly().waitFor(10, TimeUnit.SECONDS);
+                }
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        });
+        deleteTree(workDirectory);
+        deleteFile(record);
+        try {
+            Runtime.getRuntime().removeShutdownHook(cleanup);
+        } catch (IllegalStateException e) {
+            // the JVM is shutting down; the hook finds the server already gone
+        }
+    }
+
+    /**
+     * Records the server process {@code server} of the Gradle daemon {@code owner}, with its data in
+     * {@code work}, for {@link #cleanUpAbandoned(Path)}. Start times tell a reused process ID apart.
+     */
+    static Path writeRecord(Path directory, ProcessHandle owner, ProcessHandle server, Path work) {
+        Path file = directory.resolve(server.pid() + ".process");
+        try {
+            Files.createDirectories(directory);
+            Files.writeString(file, String.join("\n", Long.toString(owner.pid()), startOf(owner),
+                Long.toString(server.pid()), startOf(server), work.toString()) + "\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write " + file, e);
+        }
+        return file;
+    }
+
+    /**
+     * Stops the servers, and deletes the data, that Gradle daemons which are gone left behind: a killed
+     * daemon runs no shutdown hook.
+     */
+    static void cleanUpAbandoned(Path directory) {
+        File[] records = directory.toFile().listFiles((dir, name) -> name.endsWith(".process"));
+        if (records == null) {
+            return;
+        }
+        for (File record : records) {
+            List<String> lines;
+            try {
+                lines = Files.readAllLines(record.toPath());
+            } catch (IOException e) {
+                continue;
+            }
+            if (lines.size() < 5) {
+                // being written
+                continue;
+            }
+            if (find(Long.parseLong(lines.get(0)), lines.get(1)) != null) {
+                continue;
+            }
+            ProcessHandle server = find(Long.parseLong(lines.get(2)), lines.get(3));
+            if (server != null) {
+                LOGGER.lifecycle("Stopping embedded database process {} left behind by a Gradle daemon that is gone", server.pid());
+                destroy(server);
+            }
+            deleteTree(Path.of(lines.get(4)));
+            deleteFile(record.toPath());
+        }
+    }
+
+    private static ProcessHandle find(long pid, String start) {
+        return ProcessHandle.of(pid)
+            .filter(ProcessHandle::isAlive)
+            .filter(handle -> start.isEmpty() || start.equals(startOf(handle)))
+            .orElse(null);
+    }
+
+    private static String startOf(ProcessHandle handle) {
+        return handle.info().startInstant().map(Instant::toString).orElse("");
+    }
+
+    private static void destroy(ProcessHandle server) {
+        server.descendants().forEach(ProcessHandle::destroyForcibly);
+        server.destroyForcibly();
+        try {
+            server.onExit().get(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            LOGGER.info("Embedded database process {} did not exit: {}", server.pid(), e.getMessage());
+        }
+    }
+
+    private static void deleteFile(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOGGER.info("Could not delete {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static Binaries locate(SupportedDatabase dbType, File installDirectory) {
+        List<Path> directories = new ArrayList<>();
+        if (installDirectory != null) {
+            Path home = installDirectory.toPath();
+            directories.addAll(List.of(home.resolve("bin"), home.resolve("sbin"), home.resolve("scripts"), home));
+        } else {
+            for (String entry : System.getenv().getOrDefault("PATH", "").split(File.pathSeparator)) {
+                if (!entry.isBlank()) {
+                    directories.add(Path.of(entry));
+                }
+            }
+        }
+        Path server;
+        Path initializer;
+        switch (dbType) {
+            case POSTGRES -> {
+                server = find(directories, "postgres");
+                initializer = find(directories, "initdb");
+            }
+            case MYSQL -> {
+                server = find(directories, "mysqld");
+                initializer = server;
+            }
+            default -> {
+                server = find(directories, "mariadbd", "mysqld");
+                initializer = find(directories, "mariadb-install-db", "mysql_install_db");
+            }
+        }
+        if (server == null || initializer == null) {
+            throw new IllegalStateException("No local " + dbType + " installation found "
+                + (installDirectory == null ? "on the PATH" : "in " + installDirectory)
+                + ". Set testcontainersJooq.embedded.installDirectory to the directory that contains bin/.");
+        }
+        Path home = installDirectory != null ? installDirectory.toPath() : server.getParent().getParent();
+        return new Binaries(home, server, initializer);
+    }
+
+    private static Path find(List<Path> directories, String... names) {
+        for (String name : names) {
+            for (Path directory : directories) {
+                Path candidate = directory.resolve(name);
+                if (Files.isRegularFile(candidate) && Files.isExecutable(candidate)) {
+                    return candidate.toAbsolutePath();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String templateKey(SupportedDatabase dbType, Binaries binaries, String username) {
+        long modified;
+        try {
+            modified = Files.getLastModifiedTime(binaries.server().toRealPath()).toMillis();
+        } catch (IOException e) {
+            modified = 0;
+        }
+        String key = String.join("\n", dbType.name(), binaries.server().toString(), Long.toString(modified), username);
+        return dbType.name().toLowerCase(Locale.ROOT) + "-" + ContainerSnapshots.sha256(key).substring(0, 16);
+    }
+
+    private static void initialize(SupportedDatabase dbType, Binaries binaries, String username, Path template) {
+        Path staging = template.resolveSibling(template.getFileName() + ".tmp-" + ProcessHandle.current().pid());
+        deleteTree(staging);
+        try {
+            Files.createDirectories(staging.getParent());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create " + staging.getParent(), e);
+        }
+        List<String> command = new ArrayList<>();
+        command.add(binaries.initializer().toString());
+        switch (dbType) {
+            case POSTGRES -> command.addAll(List.of("-D", staging.toString(), "-U", username, "-A", "trust",
+                "-E", "UTF8", "--no-locale", "--no-sync"));
+            case MYSQL -> command.addAll(List.of("--no-defaults", "--initialize-insecure",
+                "--basedir=" + binaries.home(), "--datadir=" + staging));
+            default -> command.addAll(List.of("--no-defaults", "--basedir=" + binaries.home(), "--datadir=" + staging,
+                "--auth-root-authentication-method=normal", "--skip-test-db"));
+        }
+        if (dbType != SupportedDatabase.POSTGRES && isRoot()) {
+            command.add("--user=root");
+        }
+
+        Path log = staging.resolveSibling(staging.getFileName() + ".log");
+        try {
+            Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+            if (!process.waitFor(5, TimeUnit.MINUTES)) {
+                process.destroyForcibly();
+                throw new IllegalStateException("Initializing the embedded " + dbType + " data directory timed out");
+            }
+            if (process.exitValue() != 0) {
+                throw new IllegalStateException("Initializing the embedded " + dbType + " data directory failed:\n" + tail(log));
+            }
+            try {
+                Files.move(staging, template, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // another build initialized the same template concurrently
+                deleteTree(staging);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to run " + binaries.initializer(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while initializing the embedded " + dbType, e);
+        } finally {
+            deleteTree(staging);
+            try {
+                Files.deleteIfExists(log);
+            } catch (IOException ignored) {
+                // best effort
+            }
+        }
+    }
+
+    private static String initScript(String username, String password, String primaryName) {
+        String user = username.replace("'", "''");
+        String pass = password.replace("'", "''");
+        StringBuilder sql = new StringBuilder();
+        for (String host : List.of("%", "localhost")) {
+            String account = "'" + user + "'@'" + host + "'";
+            sql.append("CREATE USER IF NOT EXISTS ").append(account).append(" IDENTIFIED BY '").append(pass).append("';\n")
+                .append("ALTER USER ").append(account).append(" IDENTIFIED BY '").append(pass).append("';\n")
+                .append("GRANT ALL PRIVILEGES ON *.* TO ").append(account).append(" WITH GRANT OPTION;\n");
+        }
+        sql.append("CREATE DATABASE IF NOT EXISTS `").append(primaryName.replace("`", "``")).append("`;\n");
+        return sql.toString();
+    }
+
+    private static void awaitReady(Process process, String url, String username, String password, Path work) {
+        long deadline = System.currentTimeMillis() + READY_TIMEOUT_MILLIS;
+        SQLException last = null;
+        while (System.currentTimeMillis() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("The embedded database exited with " + process.exitValue() + ":\n"
+                    + tail(work.resolve("server.log")));
+            }
+            try (Connection conn = DriverManager.getConnection(url, username, password)) {
+                if (conn.isValid(1)) {
+                    return;
+                }
+            } catch (SQLException e) {
+                last = e;
+            }
+            try {
+                Thread.sleep(25);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the embedded database", e);
+            }
+        }
+        throw new IllegalStateException("The embedded database did not accept connections within "
+            + TimeUnit.MILLISECONDS.toSeconds(READY_TIMEOUT_MILLIS) + "s:\n" + tail(work.resolve("server.log")), last);
+    }
+
+    private static void execute(String url, String username, String password, String sql) {
+        try (Connection conn = DriverManager.getConnection(url, username, password);
+             Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to run '" + sql + "' on the embedded database", e);
+        }
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            socket.setReuseAddress(true);
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No free port for the embedded database", e);
+        }
+    }
+
+    private static boolean isRoot() {
+        try {
+            // /proc/self belongs to the process's effective user, whatever user.name says
+            return Integer.valueOf(0).equals(Files.getAttribute(Path.of("/proc/self"), "unix:uid"));
+        } catch (IOException | UnsupportedOperationException | IllegalArgumentException e) {
+            return "root".equals(System.getProperty("user.name"));
+        }
+    }
+
+    private static void setOwnerOnly(Path directory) {
+        try {
+            Files.setPosixFilePermissions(directory, PosixFilePermissions.fromString("rwx------"));
+        } catch (UnsupportedOperationException | IOException e) {
+            LOGGER.debug("Could not restrict permissions of {}", directory, e);
+        }
+    }
+
+    private static void copyTree(Path source, Path target) {
+        try (Stream<Path> paths = Files.walk(source)) {
+            for (Path path : paths.toList()) {
+                Path destination = target.resolve(source.relativize(path).toString());
+                if (Files.isDirectory(path)) {
+                    Files.createDirectories(destination);
+                } else {
+                    Files.copy(path, destination, StandardCopyOption.COPY_ATTRIBUTES);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to copy " + source + " to " + target, e);
+        }
+    }
+
+    private static void deleteTree(Path root) {
+        if (!Files.exists(root)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        } catch (IOException e) {
+            LOGGER.info("Could not delete {}: {}", root, e.getMessage());
+        }
+    }
+
+    private static void writeString(Path file, String content) {
+        try {
+            Files.writeString(file, content);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write " + file, e);
+        }
+    }
+
+    private static String tail(Path log) {
+        try {
+            List<String> lines = Files.readAllLines(log);
+            return String.join("\n", lines.subList(Math.max(0, lines.size() - 20), lines.size()));
+        } catch (IOException e) {
+            return "(no output in " + log + ")";
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.gradle;
+
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.model.ObjectFactory;
+
+import javax.inject.Inject;
+
+public abstract class EmbeddedSpec {
+    private final DirectoryProperty installDirectory;
+
+    @Inject
+    public EmbeddedSpec(ObjectFactory objects) {
+        this.installDirectory = objects.directoryProperty();
+    }
+
+    public DirectoryProperty getInstallDirectory() { return installDirectory; }
+}
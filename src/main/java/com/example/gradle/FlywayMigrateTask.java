@@ -0,0 +1,99 @@
+package com.example.gradle;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.MapProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.IgnoreEmptyDirectories;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Migrates a single schema configuration into the shared container. The migrated database does not
+ * outlive the build, so the recorded report is the task's only output; a {@code generate<Name>Jooq}
+ * task that actually executes migrates again through the service (a no-op if this task already ran).
+ */
+@CacheableTask
+public abstract class FlywayMigrateTask extends DefaultTask {
+
+    @Internal
+    public abstract Property<RdbmsContainerService> getService();
+
+    @Internal
+    public abstract Property<String> getProjectPath();
+
+    @Input
+    public abstract Property<String> getConfigurationName();
+
+    @Input
+    public abstract ListProperty<String> getLocations();
+
+    @InputFiles
+    @PathSensitive(PathSensitivity.RELATIVE)
+    @IgnoreEmptyDirectories
+    public abstract ConfigurableFileCollection getMigrationDirectories();
+
+    @Input
+    public abstract ListProperty<String> getSchemas();
+
+    @Input
+    public abstract MapProperty<String, String> getOptions();
+
+    @Input
+    @Optional
+    public abstract Property<String> getTemplateName();
+
+    @Input
+    @Optional
+    public abstract Property<String> getTemplateSchema();
+
+    @Input
+    public abstract Property<SupportedDatabase> getDatabaseType();
+
+    @Input
+    public abstract Property<String> getDockerImage();
+
+    @Internal
+    public abstract ListProperty<String> getDatabaseNames();
+
+    @OutputFile
+    public abstract RegularFileProperty getReportFile();
+
+    @TaskAction
+    public void migrate() {
+        RdbmsContainerService service = getService().get();
+        service.ensureDatabases(getDatabaseNames().get());
+        List<String> locations = MigrationLocations.toFlywayLocations(getLocations().get(),
+            new ArrayList<>(getMigrationDirectories().getFiles()));
+        int applied = service.migrate(getProjectPath().get(), getConfigurationName().get(), locations, getSchemas().get(), getOptions().get(),
+            getTemplateName().getOrNull(), getTemplateSchema().getOrNull());
+
+        File report = getReportFile().get().getAsFile();
+        try {
+            Files.createDirectories(report.getParentFile().toPath());
+            Files.writeString(report.toPath(), String.join("\n",
+                "configuration=" + getConfigurationName().get(),
+                "locations=" + String.join(",", getLocations().get()),
+                "schemas=" + String.join(",", getSchemas().get()),
+                "migrationsApplied=" + applied) + "\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write " + report, e);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.gradle;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the generated sources that did not change. nu.studer's task deletes its output directory and
+ * regenerates everything, so before it runs the previous output is moved aside, and afterwards every
+ * regenerated file whose hash matches the manifest of the previous run is replaced by the previous file
+ * again. Unchanged files therefore keep their timestamps (and inodes), which is what IDEs, file watchers
+ * and other timestamp-based tools look at. Gradle's own up-to-date checks and compile avoidance hash
+ * file contents, so they see no difference either way.
+ *
+ * <p>The aside directory and the manifest are named by a hash of the output directory's absolute path,
+ * so a task with several output directories of the same name keeps them apart.
+ *
+ * <p>The manifest records hash, size and modification time per file, so the previous output does not
+ * have to be read again; a previous file whose size or timestamp no longer matches is not reused.
+ */
+final class GeneratedSources {
+    private GeneratedSources() {
+    }
+
+    static String key(File outputDirectory) {
+        return ContainerSnapshots.sha256(outputDirectory.getAbsolutePath()).substring(0, 16);
+    }
+
+    static File manifest(File manifestDirectory, File outputDirectory) {
+        return new File(manifestDirectory, key(outputDirectory) + ".properties");
+    }
+
+    static void setAside(File outputDirectory, File previousDirectory) {
+        try {
+            deleteTree(previousDirectory.toPath());
+            if (outputDirectory.isDirectory()) {
+                Files.createDirectories(previousDirectory.toPath().getParent());
+                Files.move(outputDirectory.toPath(), previousDirectory.toPath());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to move " + outputDirectory + " aside", e);
+        }
+    }
+
+    /**
+     * Restores unchanged files from {@code previousDirectory}, writes the new manifest and deletes the
+     * previous output. Returns counters for the timing report.
+     */
+    static Map<String, Long> restoreUnchanged(File outputDirectory, File previousDirectory, File manifestFile) {
+        Path output = outputDirectory.toPath();
+        Path previous = previousDirectory.toPath();
+        Properties manifest = load(manifestFile);
+        Map<String, String> next = new TreeMap<>();
+        long unchanged = 0;
+        long written = 0;
+        try {
+            for (Path file : regularFiles(output)) {
+                String relative = output.relativize(file).toString().replace(File.separatorChar, '/');
+                String hash = ContainerSnapshots.sha256(file);
+                Path old = previous.resolve(relative);
+                String entry = manifest.getProperty(relative);
+                if (entry != null && entry.startsWith(hash + ",") && Files.isRegularFile(old) && entry.equals(describe(hash, old))) {
+                    Files.move(old, file, StandardCopyOption.REPLACE_EXISTING);
+                    unchanged++;
+                } else {
+                    written++;
+                }
+                next.put(relative, describe(hash, file));
+            }
+            long deleted = manifest.stringPropertyNames().stream().filter(path -> !next.containsKey(path)).count();
+            deleteTree(previous);
+            store(manifestFile, next);
+            return Map.of("filesUnchanged", unchanged, "filesWritten", written, "filesDeleted", deleted);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to compare generated sources in " + outputDirectory, e);
+        }
+    }
+
+    private static String describe(String hash, Path file) throws IOException {
+        return hash + "," + Files.size(file) + "," + Files.getLastModifiedTime(file).toMillis();
+    }
+
+    private static List<Path> regularFiles(Path root) throws IOException {
+        if (!Files.isDirectory(root)) {
+            return List.of();
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            return paths.filter(Files::isRegularFile).toList();
+        }
+    }
+
+    private static Properties load(File manifestFile) {
+        Properties properties = new Properties();
+        if (manifestFile.isFile()) {
+            try (InputStream in = Files.newInputStream(manifestFile.toPath())) {
+                properties.load(in);
+            } catch (IOException e) {
+                // a broken manifest only means nothing is reused
+                properties.clear();
+            }
+        }
+        return properties;
+    }
+
+    private static void store(File manifestFile, Map<String, String> entries) throws IOException {
+        Files.createDirectories(manifestFile.getParentFile().toPath());
+        Properties properties = new Properties();
+        properties.putAll(entries);
+        try (OutputStream out = Files.newOutputStream(manifestFile.toPath())) {
+            properties.store(out, null);
+        }
+    }
+
+    static void deleteTree(Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
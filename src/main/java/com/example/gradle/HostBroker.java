@@ -0,0 +1,298 @@
+package com.example.gradle;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Coordinates the builds on one host that share a database server per database type, image and
+ * credentials. Lock files under the state directory serialize finding or starting the server and cap the
+ * number of migrations that run on it at once, across processes. Every build works in a namespace of
+ * its own: on PostgreSQL a database {@code tcjb<id>_<primary>} holding the schemas under their own
+ * names, on MySQL/MariaDB one database {@code tcjb<id>_<name>} per name. A lease file per namespace
+ * marks it as in use; a heartbeat keeps it fresh for as long as the build runs, so namespaces whose
+ * lease went stale belong to killed builds and are dropped. The server itself is only removed while
+ * nobody holds its lock and no lease is live, see {@link #whenUnused(File, Duration, Runnable)}.
+ */
+final class HostBroker {
+    private static final Logger LOGGER = Logging.getLogger(HostBroker.class);
+
+    static final String SERVER_DATABASE = "tcj_broker";
+    static final String SCOPE = "broker";
+
+    private static final String PREFIX = "tcjb";
+    private static final Pattern NAMESPACED = Pattern.compile("^" + PREFIX + "([0-9a-f]{8})_.+$");
+    private static final int MAX_IDENTIFIER = 63;
+    private static final long LEASE_TOUCH_INTERVAL_MILLIS = 10_000;
+    private static final long MAX_SLOT_WAIT_MILLIS = 500;
+
+    interface Slot extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private final SupportedDatabase dbType;
+    private final File directory;
+    private final String namespace;
+    private final int maxConcurrentMigrations;
+    private final Duration staleAfter;
+    private volatile long leaseTouchedMillis;
+    private ScheduledExecutorService heartbeat;
+
+    HostBroker(SupportedDatabase dbType, String image, String username, String password, File stateDirectory,
+               int maxConcurrentMigrations, Duration staleAfter) {
+        this.dbType = dbType;
+        String key = ContainerSnapshots.sha256(String.join("\n", dbType.name(), image, username, password)).substring(0, 16);
+        this.directory = new File(stateDirectory, "broker/" + key);
+        this.namespace = HexFormat.of().toHexDigits(ThreadLocalRandom.current().nextInt());
+        this.maxConcurrentMigrations = Math.max(maxConcurrentMigrations, 1);
+        this.staleAfter = staleAfter;
+    }
+
+    String namespace() {
+        return namespace;
+    }
+
+    File directory() {
+        return directory;
+    }
+
+    /**
+     * The name {@code name} has in this build's namespace.
+     */
+    String physicalName(String name) {
+        String candidate = PREFIX + namespace + "_" + name;
+        if (candidate.length() <= MAX_IDENTIFIER) {
+            return candidate;
+        }
+        return candidate.substring(0, MAX_IDENTIFIER - 17) + "_" + ContainerSnapshots.sha256(name).substring(0, 16);
+    }
+
+    /**
+     * Runs {@code action} while holding the host-wide lock of this server, so only one build looks for or
+     * starts it at a time.
+     */
+    <T> T withServerLock(Supplier<T> action) {
+        try (FileChannel channel = open(new File(directory, "server.lock"))) {
+            // released when the channel closes
+            channel.lock();
+            return action.get();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to lock " + directory, e);
+        }
+    }
+
+    /**
+     * Blocks until one of the {@code maxConcurrentMigrations} migration slots of the server is free.
+     */
+    Slot acquireMigrationSlot() {
+        long backoffMillis = 10;
+        while (true) {
+            for (int slot = 0; slot < maxConcurrentMigrations; slot++) {
+                try {
+                    FileChannel channel = open(new File(directory, "migrate-" + slot + ".lock"));
+                    FileLock lock = tryLock(channel);
+                    if (lock != null) {
+                        return () -> {
+                            try {
+                                lock.release();
+                                channel.close();
+                            } catch (IOException e) {
+                                throw new UncheckedIOException("Failed to release a migration slot in " + directory, e);
+                            }
+                        };
+                    }
+                    channel.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to lock a migration slot in " + directory, e);
+                }
+            }
+            try {
+                Thread.sleep(backoffMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a migration slot", e);
+            }
+            backoffMillis = Math.min(backoffMillis * 2, MAX_SLOT_WAIT_MILLIS);
+        }
+    }
+
+    /**
+     * Marks this build's namespace as in use; cheap enough to call on every database access.
+     */
+    void touchLease() {
+        long now = System.currentTimeMillis();
+        if (now - leaseTouchedMillis < LEASE_TOUCH_INTERVAL_MILLIS) {
+            return;
+        }
+        leaseTouchedMillis = now;
+        try {
+            Files.createDirectories(directory.toPath());
+            Files.writeString(leaseFile(namespace).toPath(), Long.toString(now));
+        } catch (IOException e) {
+            LOGGER.info("Could not write lease for namespace {}: {}", namespace, e.getMessage());
+        }
+    }
+
+    /**
+     * Touches this build's lease, and runs {@code alsoTouch} (the server's lease), every few seconds until
+     * {@link #stopHeartbeat()}, so long migrations and generation never look abandoned.
+     */
+    synchronized void startHeartbeat(Runnable alsoTouch) {
+        if (heartbeat != null) {
+            return;
+        }
+        heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "testcontainers-jooq-broker-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat.scheduleWithFixedDelay(() -> {
+            leaseTouchedMillis = 0;
+            touchLease();
+            alsoTouch.run();
+        }, LEASE_TOUCH_INTERVAL_MILLIS, LEASE_TOUCH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    synchronized void stopHeartbeat() {
+        if (heartbeat != null) {
+            heartbeat.shutdownNow();
+            heartbeat = null;
+        }
+    }
+
+    /**
+     * Runs {@code action} (removing the server whose broker state lives in {@code directory}) while
+     * holding the server's lock, unless a build may still use it: another build holds the lock (it is
+     * attaching or starting the server) or has a namespace lease younger than {@code staleAfter}.
+     * Returns whether {@code action} ran.
+     */
+    static boolean whenUnused(File directory, Duration staleAfter, Runnable action) {
+        try {
+            Files.createDirectories(directory.toPath());
+        } catch (IOException e) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(new File(directory, "server.lock").toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            // released when the channel closes
+            if (tryLock(channel) == null) {
+                return false;
+            }
+            long cutoff = System.currentTimeMillis() - staleAfter.toMillis();
+            File[] leases = directory.listFiles((dir, name) -> name.endsWith(".lease"));
+            if (leases != null) {
+                for (File lease : leases) {
+                    if (lease.lastModified() >= cutoff) {
+                        return false;
+                    }
+                }
+            }
+            action.run();
+            return true;
+        } catch (IOException e) {
+            // cannot tell; keep the server
+            return false;
+        }
+    }
+
+    /**
+     * Drops the namespaces of builds whose lease is missing or older than the idle timeout.
+     */
+    void dropAbandoned(Connection server) throws SQLException {
+        long cutoff = System.currentTimeMillis() - staleAfter.toMillis();
+        for (String database : namespacedDatabases(server)) {
+            String owner = owner(database);
+            File lease = leaseFile(owner);
+            if (!owner.equals(namespace) && (!lease.isFile() || lease.lastModified() < cutoff)) {
+                LOGGER.info("Dropping {} of an abandoned build", database);
+                drop(server, database);
+                lease.delete();
+            }
+        }
+    }
+
+    /**
+     * Drops everything in this build's namespace and its lease.
+     */
+    void dropNamespace(Connection server) throws SQLException {
+        for (String database : namespacedDatabases(server)) {
+            if (owner(database).equals(namespace)) {
+                drop(server, database);
+            }
+        }
+        leaseFile(namespace).delete();
+    }
+
+    private List<String> namespacedDatabases(Connection server) throws SQLException {
+        String sql = dbType == SupportedDatabase.POSTGRES
+            ? "SELECT datname FROM pg_database WHERE datname LIKE '" + PREFIX + "%'"
+            : "SELECT schema_name FROM information_schema.schemata WHERE schema_name LIKE '" + PREFIX + "%'";
+        List<String> databases = new ArrayList<>();
+        try (Statement stmt = server.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                if (NAMESPACED.matcher(rs.getString(1)).matches()) {
+                    databases.add(rs.getString(1));
+                }
+            }
+        }
+        return databases;
+    }
+
+    private void drop(Connection server, String database) throws SQLException {
+        try (Statement stmt = server.createStatement()) {
+            if (dbType == SupportedDatabase.POSTGRES) {
+                stmt.execute("DROP DATABASE IF EXISTS \"" + database.replace("\"", "\"\"") + "\"");
+            } else {
+                stmt.execute("DROP DATABASE IF EXISTS `" + database.replace("`", "``") + "`");
+            }
+        }
+    }
+
+    private static String owner(String database) {
+        Matcher matcher = NAMESPACED.matcher(database);
+        return matcher.matches() ? matcher.group(1) : "";
+    }
+
+    private File leaseFile(String owner) {
+        return new File(directory, owner + ".lease");
+    }
+
+    private FileChannel open(File file) throws IOException {
+        Files.createDirectories(directory.toPath());
+        return FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    }
+
+    private static FileLock tryLock(FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // held by another migration of this build
+            return null;
+        }
+    }
+}
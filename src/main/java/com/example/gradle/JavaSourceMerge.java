@@ -0,0 +1,331 @@
+package com.example.gradle;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Merges two versions of a class jOOQ generated for different subsets of one schema. Both are read as
+ * imports plus the members of the top-level class: members only the second version has are added (fields
+ * after the last field, everything else at the end), and for members both have, the items of an
+ * {@code Arrays.asList(...)} they return are united, which is how jOOQ lists a schema's tables, sequences
+ * and so on. Anything else keeps the first version.
+ */
+final class JavaSourceMerge {
+    private static final Pattern AS_LIST = Pattern.compile("(?:Arrays\\.(?:<[^(]*>)?asList|List\\.(?:<[^(]*>)?of)\\(");
+
+    private JavaSourceMerge() {
+    }
+
+    private record Member(String text, String key, boolean field) {
+    }
+
+    private record Source(String head, List<String> imports, String preamble, List<Member> members, String tail) {
+    }
+
+    static String merge(String first, String second) {
+        Source base = parse(first);
+        Source other = parse(second);
+        if (base == null || other == null) {
+            return first;
+        }
+
+        LinkedHashSet<String> imports = new LinkedHashSet<>(base.imports());
+        imports.addAll(other.imports());
+
+        Map<String, Member> members = new LinkedHashMap<>();
+        base.members().forEach(member -> members.put(member.key(), member));
+        List<Member> addedFields = new ArrayList<>();
+        List<Member> addedOthers = new ArrayList<>();
+        for (Member member : other.members()) {
+            Member existing = members.get(member.key());
+            if (existing == null) {
+                // one blank line before it, whatever preceded it in its own class
+                String text = withoutLineComments(member.text()).replaceFirst("^(?:[ \\t]*\\n)+", "\n");
+                Member stripped = new Member(text, member.key(), member.field());
+                (member.field() ? addedFields : addedOthers).add(stripped);
+            } else if (!existing.text().equals(member.text())) {
+                members.put(member.key(), new Member(mergeLists(existing.text(), member.text()), existing.key(), existing.field()));
+            }
+        }
+
+        List<Member> ordered = new ArrayList<>(members.values());
+        int lastField = -1;
+        for (int i = 0; i < ordered.size(); i++) {
+            if (ordered.get(i).field()) {
+                lastField = i;
+            }
+        }
+        ordered.addAll(lastField + 1, addedFields);
+        ordered.addAll(addedOthers);
+
+        StringBuilder out = new StringBuilder(base.head());
+        imports.forEach(line -> out.append(line).append('\n'));
+        out.append(base.preamble());
+        ordered.forEach(member -> out.append(member.text()));
+        out.append(base.tail());
+        return out.toString();
+    }
+
+    /**
+     * Splits a source into the text before the imports, the import lines, the text up to and including
+     * the opening brace of the top-level class, its members and the rest. Returns null for sources this
+     * cannot read.
+     */
+    private static Source parse(String source) {
+        List<String> imports = new ArrayList<>();
+        int firstImport = -1;
+        int afterImports = 0;
+        Matcher importLine = Pattern.compile("(?m)^import [^;]+;[ \\t]*\\n").matcher(source);
+        while (importLine.find()) {
+            if (firstImport < 0) {
+                firstImport = importLine.start();
+            }
+            imports.add(importLine.group().trim());
+            afterImports = importLine.end();
+        }
+        String head = firstImport < 0 ? "" : source.substring(0, firstImport);
+
+        int open = classBodyStart(source, afterImports);
+        int close = source.lastIndexOf('}');
+        if (open < 0 || close <= open) {
+            return null;
+        }
+        List<Member> members = members(source.substring(open + 1, close));
+        if (members == null) {
+            return null;
+        }
+        int bodyEnd = open + 1 + members.stream().mapToInt(member -> member.text().length()).sum();
+        return new Source(head, imports, source.substring(afterImports, open + 1), members, source.substring(bodyEnd));
+    }
+
+    /**
+     * The first brace outside comments, literals and annotation arguments.
+     */
+    private static int classBodyStart(String source, int from) {
+        int parens = 0;
+        for (int i = from; i < source.length(); i++) {
+            char c = source.charAt(i);
+            if (c == '/' && i + 1 < source.length() && source.charAt(i + 1) == '/') {
+                i = lineEnd(source, i);
+            } else if (c == '/' && i + 1 < source.length() && source.charAt(i + 1) == '*') {
+                int end = source.indexOf("*/", i + 2);
+                if (end < 0) {
+                    return -1;
+                }
+                i = end + 1;
+            } else if (c == '"' || c == '\'') {
+                i = literalEnd(source, i, c);
+                if (i < 0) {
+                    return -1;
+                }
+            } else if (c == '(') {
+                parens++;
+            } else if (c == ')') {
+                parens--;
+            } else if (c == '{' && parens == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The members of a class body, each with the comments and whitespace before it. The body's trailing
+     * whitespace stays out of the members.
+     */
+    private static List<Member> members(String body) {
+        List<Member> members = new ArrayList<>();
+        int start = 0;
+        int braces = 0;
+        int parens = 0;
+        boolean code = false;
+        for (int i = 0; i < body.length(); i++) {
+            char c = body.charAt(i);
+            if (c == '/' && i + 1 < body.length() && body.charAt(i + 1) == '/') {
+                i = lineEnd(body, i);
+                continue;
+            }
+            if (c == '/' && i + 1 < body.length() && body.charAt(i + 1) == '*') {
+                int end = body.indexOf("*/", i + 2);
+                if (end < 0) {
+                    return null;
+                }
+                i = end + 1;
+                continue;
+            }
+            if (c == '"' || c == '\'') {
+                i = literalEnd(body, i, c);
+                if (i < 0) {
+                    return null;
+                }
+                code = true;
+                continue;
+            }
+            if (!Character.isWhitespace(c)) {
+                code = true;
+            }
+            switch (c) {
+                case '{' -> braces++;
+                case '(' -> parens++;
+                case ')' -> parens--;
+                case '}' -> {
+                    braces--;
+                    if (braces == 0 && parens == 0 && !continues(body, i + 1)) {
+                        int end = lineEnd(body, i) + 1;
+                        members.add(member(body.substring(start, Math.min(end, body.length()))));
+                        start = Math.min(end, body.length());
+                        i = start - 1;
+                        code = false;
+                    }
+                }
+                case ';' -> {
+                    if (braces == 0 && parens == 0) {
+                        int end = lineEnd(body, i) + 1;
+                        members.add(member(body.substring(start, Math.min(end, body.length()))));
+                        start = Math.min(end, body.length());
+                        i = start - 1;
+                        code = false;
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+        return code || braces != 0 ? null : members;
+    }
+
+    private static Member member(String text) {
+        String code = withoutComments(text).trim();
+        int brace = code.indexOf('{');
+        int assign = code.indexOf('=');
+        int paren = code.indexOf('(');
+        boolean field = code.endsWith(";") && (paren < 0 || (assign >= 0 && assign < paren));
+        String signature;
+        if (field) {
+            signature = code.substring(0, assign >= 0 ? assign : code.length() - 1);
+        } else {
+            signature = code.substring(0, brace >= 0 ? brace : code.length());
+        }
+        return new Member(text, signature.replaceAll("\\s+", " ").trim(), field);
+    }
+
+    /**
+     * Unites the items of the {@code Arrays.asList(...)} in {@code first} and {@code second}, keeping the
+     * items sorted if they were.
+     */
+    private static String mergeLists(String first, String second) {
+        int[] firstList = listBounds(first);
+        int[] secondList = listBounds(second);
+        if (firstList == null || secondList == null) {
+            return first;
+        }
+        List<String> firstItems = items(first.substring(firstList[0], firstList[1]));
+        List<String> items = new ArrayList<>(new LinkedHashSet<>(firstItems));
+        for (String item : items(second.substring(secondList[0], secondList[1]))) {
+            if (!items.contains(item)) {
+                items.add(item);
+            }
+        }
+        List<String> sorted = new ArrayList<>(firstItems);
+        sorted.sort(null);
+        if (sorted.equals(firstItems)) {
+            items.sort(null);
+        }
+        String closingIndent = lineIndent(first, firstList[1]);
+        String indent = firstItems.isEmpty() ? closingIndent + "    " : lineIndent(first, first.indexOf(firstItems.get(0), firstList[0]));
+        String joined = items.isEmpty() ? "" : "\n" + indent + String.join(",\n" + indent, items) + "\n" + closingIndent;
+        return first.substring(0, firstList[0]) + joined + first.substring(firstList[1]);
+    }
+
+    private static int[] listBounds(String text) {
+        Matcher matcher = AS_LIST.matcher(text);
+        if (!matcher.find()) {
+            return null;
+        }
+        int depth = 1;
+        for (int i = matcher.end(); i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return new int[] {matcher.end(), i};
+            }
+        }
+        return null;
+    }
+
+    private static List<String> items(String list) {
+        List<String> items = new ArrayList<>();
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i < list.length(); i++) {
+            char c = list.charAt(i);
+            if (c == '(' || c == '{' || c == '<') {
+                depth++;
+            } else if (c == ')' || c == '}' || c == '>') {
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                items.add(list.substring(start, i).trim());
+                start = i + 1;
+            }
+        }
+        String last = list.substring(start).trim();
+        if (!last.isEmpty()) {
+            items.add(last);
+        }
+        return items;
+    }
+
+    private static String lineIndent(String text, int position) {
+        int start = text.lastIndexOf('\n', position - 1) + 1;
+        int end = start;
+        while (end < text.length() && (text.charAt(end) == ' ' || text.charAt(end) == '\t')) {
+            end++;
+        }
+        return text.substring(start, end);
+    }
+
+    private static boolean continues(String body, int from) {
+        for (int i = from; i < body.length(); i++) {
+            char c = body.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                return c == ';' || c == ',' || c == ')' || c == '.';
+            }
+        }
+        return false;
+    }
+
+    private static int lineEnd(String text, int from) {
+        int end = text.indexOf('\n', from);
+        return end < 0 ? text.length() - 1 : end;
+    }
+
+    private static int literalEnd(String text, int from, char quote) {
+        if (quote == '"' && text.startsWith("\"\"\"", from)) {
+            int end = text.indexOf("\"\"\"", from + 3);
+            return end < 0 ? -1 : end + 2;
+        }
+        for (int i = from + 1; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == quote) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String withoutComments(String text) {
+        return withoutLineComments(text).replaceAll("(?s)/\\*.*?\\*/", "");
+    }
+
+    private static String withoutLineComments(String text) {
+        return text.replaceAll("(?m)^[ \\t]*//.*\\n", "");
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.gradle;
+
+import com.github.dockerjava.api.command.InspectContainerResponse;
+import org.testcontainers.containers.JdbcDatabaseContainer;
+import org.testcontainers.containers.MariaDBContainer;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Readiness probe for the database containers: {@code SELECT 1} over JDBC, retried with exponential
+ * backoff. The entrypoints of all three images run their initialization server without TCP, so the
+ * first successful connection is to the final server and no log message has to be waited for.
+ *
+ * <p>{@code JdbcDatabaseContainer} ignores {@code waitingFor} for MySQL/MariaDB and polls on its own,
+ * which is why the containers below override {@code waitUntilContainerStarted} instead.
+ */
+final class JdbcReadiness {
+    private final ReadinessStrategy strategy;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration timeout;
+    private volatile int attempts;
+
+    JdbcReadiness(ReadinessStrategy strategy, Duration initialBackoff, Duration maxBackoff, Duration timeout) {
+        this.strategy = strategy;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.timeout = timeout;
+    }
+
+    int attempts() {
+        return attempts;
+    }
+
+    void await(JdbcDatabaseContainer<?> container) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        long backoffMillis = Math.max(initialBackoff.toMillis(), 1);
+        SQLException last = null;
+        while (System.nanoTime() < deadline) {
+            if (container.isRunning() && healthy(container)) {
+                attempts++;
+                try (Connection conn = DriverManager.getConnection(container.getJdbcUrl(), container.getUsername(), container.getPassword());
+                     Statement stmt = conn.createStatement()) {
+                    stmt.execute("SELECT 1");
+                    return;
+                } catch (SQLException e) {
+                    last = e;
+                }
+            }
+            try {
+                Thread.sleep(backoffMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for " + container.getJdbcUrl(), e);
+            }
+            backoffMillis = Math.min(backoffMillis * 2, Math.max(maxBackoff.toMillis(), 1));
+        }
+        throw new IllegalStateException("Database at " + container.getJdbcUrl() + " not ready after " + timeout
+            + " (" + attempts + " connection attempts); check the container logs", last);
+    }
+
+    private boolean healthy(JdbcDatabaseContainer<?> container) {
+        if (strategy != ReadinessStrategy.HEALTHCHECK) {
+            return true;
+        }
+        InspectContainerResponse.ContainerState state = container.getCurrentContainerInfo().getState();
+        return state.getHealth() == null || "healthy".equals(state.getHealth().getStatus());
+    }
+
+    static final class Postgres extends PostgreSQLContainer<Postgres> {
+        private final JdbcReadiness readiness;
+
+        Postgres(DockerImageName image, JdbcReadiness readiness) {
+            super(image);
+            this.readiness = readiness;
+        }
+
+        @Override
+        protected void waitUntilContainerStarted() {
+            if (readiness == null) {
+                super.waitUntilContainerStarted();
+            } else {
+                readiness.await(this);
+            }
+        }
+    }
+
+    static final class MySql extends MySQLContainer<MySql> {
+        private final JdbcReadiness readiness;
+
+        MySql(DockerImageName image, JdbcReadiness readiness) {
+            super(image);
+            this.readiness = readiness;
+        }
+
+        @Override
+        protected void waitUntilContainerStarted() {
+            if (readiness == null) {
+                super.waitUntilContainerStarted();
+            } else {
+                readiness.await(this);
+            }
+        }
+    }
+
+    static final class MariaDb extends MariaDBContainer<MariaDb> {
+        private final JdbcReadiness readiness;
+
+        MariaDb(DockerImageName image, JdbcReadiness readiness) {
+            super(image);
+            this.readiness = readiness;
+        }
+
+        @Override
+        protected void waitUntilContainerStarted() {
+            if (readiness == null) {
+                super.waitUntilContainerStarted();
+            } else {
+                readiness.await(this);
+            }
+        }
+    }
+}
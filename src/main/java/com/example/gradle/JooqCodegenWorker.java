@@ -0,0 +1,125 @@
+package com.example.gradle;
+
+import org.gradle.api.Action;
+import org.gradle.api.InvalidUserDataException;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.process.JavaExecSpec;
+import org.gradle.process.JavaForkOptions;
+import org.gradle.workers.WorkAction;
+import org.gradle.workers.WorkParameters;
+import org.gradle.workers.WorkQueue;
+import org.gradle.workers.WorkerExecutor;
+import org.jooq.util.jaxb.tools.MiniJAXB;
+import org.jooq.util.jaxb.tools.XMLAppendable;
+
+import javax.inject.Inject;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * Runs jOOQ's {@code GenerationTool} through the Worker API instead of nu.studer's {@code javaexec}. The
+ * worker only sees the {@code jooqGenerator} classpath, so jOOQ and the JDBC driver come from there,
+ * exactly as in the forked JVM; the generator is looked up reflectively for that reason.
+ */
+public abstract class JooqCodegenWorker {
+    private static final String GENERATION_TOOL = "org.jooq.codegen.GenerationTool";
+
+    @Inject
+    public abstract WorkerExecutor getWorkerExecutor();
+
+    void generate(CodegenExecution execution, FileCollection classpath, Action<? super JavaExecSpec> javaExecSpec,
+                  Object jooqConfiguration, File configurationFile) {
+        write(jooqConfiguration, configurationFile);
+        generate(execution, classpath, javaExecSpec, List.of(configurationFile));
+    }
+
+    /**
+     * Runs all configurations on one work queue, so Gradle generates them concurrently (up to
+     * {@code --max-workers} at once), and waits for them. Worker processes get the JVM settings of the
+     * task's {@code javaExecSpec}; class loader isolation runs in the Gradle daemon, which has its own.
+     */
+    void generate(CodegenExecution execution, FileCollection classpath, Action<? super JavaExecSpec> javaExecSpec,
+                  List<File> configurationFiles) {
+        WorkQueue queue = execution == CodegenExecution.PROCESS
+            ? getWorkerExecutor().processIsolation(spec -> {
+                spec.getClasspath().from(classpath);
+                if (javaExecSpec != null) {
+                    spec.forkOptions(options -> javaExecSpec.execute(forkOptionsSpec(options)));
+                }
+            })
+            : getWorkerExecutor().classLoaderIsolation(spec -> spec.getClasspath().from(classpath));
+        for (File configurationFile : configurationFiles) {
+            queue.submit(Generate.class, parameters -> parameters.getConfigurationFile().set(configurationFile));
+        }
+        queue.await();
+    }
+
+    static void write(Object jooqConfiguration, File configurationFile) {
+        try {
+            Files.createDirectories(configurationFile.getParentFile().toPath());
+            try (Writer out = Files.newBufferedWriter(configurationFile.toPath(), StandardCharsets.UTF_8)) {
+                MiniJAXB.marshal((XMLAppendable) jooqConfiguration, out);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write " + configurationFile, e);
+        }
+    }
+
+    /**
+     * A {@link JavaExecSpec} for nu.studer's {@code javaExecSpec} action that applies the JVM options (heap,
+     * JVM arguments, system properties, environment) to a worker's fork options. Settings of the main
+     * class and its arguments mean nothing to a worker: setters and fluent calls are ignored, reading
+     * one fails.
+     */
+    static JavaExecSpec forkOptionsSpec(JavaForkOptions options) {
+        return (JavaExecSpec) Proxy.newProxyInstance(JooqCodegenWorker.class.getClassLoader(), new Class<?>[] {JavaExecSpec.class},
+            (proxy, method, args) -> {
+                if (method.getDeclaringClass().isAssignableFrom(JavaForkOptions.class)) {
+                    try {
+                        Object result = method.invoke(options, args);
+                        return result == options ? proxy : result;
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }
+                if (method.getReturnType() == void.class) {
+                    return null;
+                }
+                if (method.getReturnType().isInstance(proxy)) {
+                    return proxy;
+                }
+                throw new InvalidUserDataException("javaExecSpec reads " + method.getName()
+                    + ", which a jOOQ worker process does not have; only JVM options apply to codegenExecution workers");
+            });
+    }
+
+    public interface GenerateParameters extends WorkParameters {
+        RegularFileProperty getConfigurationFile();
+    }
+
+    public abstract static class Generate implements WorkAction<GenerateParameters> {
+        @Override
+        public void execute() {
+            File file = getParameters().getConfigurationFile().get().getAsFile();
+            try {
+                String xml = Files.readString(file.toPath(), StandardCharsets.UTF_8);
+                Class<?> tool = Class.forName(GENERATION_TOOL, true, Thread.currentThread().getContextClassLoader());
+                tool.getMethod("generate", String.class).invoke(null, xml);
+            } catch (InvocationTargetException e) {
+                throw new IllegalStateException("jOOQ code generation failed for " + file, e.getCause());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read " + file, e);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(GENERATION_TOOL + " is not on the jooqGenerator classpath", e);
+            }
+        }
+    }
+}
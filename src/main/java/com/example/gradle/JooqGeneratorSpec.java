@@ -17,6 +17,8 @@ public abstract class JooqGeneratorSpec {
     private final MapProperty<String, String> databaseOptions;
     private final MapProperty<String, String> generatorOptions;
     private final MapProperty<String, String> targetOptions;
+    private final Property<Integer> shards;
+    private final ListProperty<String> shardPatterns;
 
     @Inject
     public JooqGeneratorSpec(ObjectFactory objects) {
@@ -29,6 +31,8 @@ public abstract class JooqGeneratorSpec {
         this.databaseOptions = objects.mapProperty(String.class, String.class);
         this.generatorOptions = objects.mapProperty(String.class, String.class);
         this.targetOptions = objects.mapProperty(String.class, String.class);
+        this.shards = objects.property(Integer.class).convention(1);
+        this.shardPatterns = objects.listProperty(String.class);
     }
 
     public Property<String> getInputSchema() { return inputSchema; }
@@ -40,4 +44,6 @@ public abstract class JooqGeneratorSpec {
     public MapProperty<String, String> getDatabaseOptions() { return databaseOptions; }
     public MapProperty<String, String> getGeneratorOptions() { return generatorOptions; }
     public MapProperty<String, String> getTargetOptions() { return targetOptions; }
+    public Property<Integer> getShards() { return shards; }
+    public ListProperty<String> getShardPatterns() { return shardPatterns; }
 }
@@ -0,0 +1,51 @@
+package com.example.gradle;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The settings a generate task applies to its native jOOQ configuration, resolved from the
+ * {@code testcontainersJooq} extension at configuration time so the task action does not need the
+ * extension (and the values can be stored in the configuration cache).
+ */
+record JooqSettings(
+    String defaultInputSchema,
+    String inputSchema,
+    List<String> inputSchemata,
+    String includes,
+    String excludes,
+    String targetPackage,
+    String targetDirectory,
+    Map<String, String> databaseOptions,
+    Map<String, String> generatorOptions,
+    Map<String, String> targetOptions,
+    int shards,
+    List<String> shardPatterns
+) implements Serializable {
+
+    static JooqSettings defaults(String defaultInputSchema) {
+        return new JooqSettings(defaultInputSchema, null, List.of(), null, null, null, null, Map.of(), Map.of(), Map.of(), 1, List.of());
+    }
+
+    static JooqSettings of(String defaultInputSchema, JooqGeneratorSpec spec) {
+        return new JooqSettings(
+            defaultInputSchema,
+            spec.getInputSchema().getOrNull(),
+            List.copyOf(spec.getInputSchemata().getOrElse(List.of())),
+            spec.getIncludes().getOrNull(),
+            spec.getExcludes().getOrNull(),
+            spec.getTargetPackage().getOrNull(),
+            spec.getTargetDirectory().getOrNull(),
+            new LinkedHashMap<>(spec.getDatabaseOptions().getOrElse(Map.of())),
+            new LinkedHashMap<>(spec.getGeneratorOptions().getOrElse(Map.of())),
+            new LinkedHashMap<>(spec.getTargetOptions().getOrElse(Map.of())),
+            spec.getShards().getOrElse(1),
+            List.copyOf(spec.getShardPatterns().getOrElse(List.of())));
+    }
+
+    boolean sharded() {
+        return shards > 1 || !shardPatterns.isEmpty();
+    }
+}
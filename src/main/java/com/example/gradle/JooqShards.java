@@ -0,0 +1,217 @@
+package com.example.gradle;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Splits the generation of one large schema into shards that jOOQ runs concurrently. Tables connected
+ * by foreign keys always land in the same shard, because jOOQ drops keys that reference tables it does
+ * not include. The first shard keeps the configured {@code includes} and excludes the other shards'
+ * tables, so it also generates everything that is not a table (sequences, routines, domains, ...).
+ *
+ * <p>Per-object files come from exactly one shard. Files that several shards write (the schema, catalog,
+ * {@code Keys}, {@code Tables}, {@code Indexes} classes) are merged member by member, see
+ * {@link JavaSourceMerge}.
+ */
+final class JooqShards {
+    // jOOQ's default RegexFlags
+    private static final int JOOQ_REGEX_FLAGS = Pattern.COMMENTS | Pattern.CASE_INSENSITIVE;
+
+    private JooqShards() {
+    }
+
+    /**
+     * The tables and views of {@code schema} that the configured filters select, grouped into at most
+     * {@code shards} shards by foreign key component, or into one shard per pattern plus one for the rest.
+     * The first shard is the one that keeps the configured filters.
+     */
+    static List<List<String>> plan(Connection conn, SupportedDatabase dbType, String schema, int shards, List<String> patterns,
+                                   String includes, String excludes) throws SQLException {
+        return plan(schema, tables(conn, schema), foreignKeys(conn, dbType, schema), shards, patterns, includes, excludes);
+    }
+
+    /**
+     * {@link #plan(Connection, SupportedDatabase, String, int, List, String, String)} over the tables of
+     * {@code schema} and its foreign keys as (table, referenced table) pairs.
+     */
+    static List<List<String>> plan(String schema, List<String> allTables, List<String[]> foreignKeys, int shards,
+                                   List<String> patterns, String includes, String excludes) {
+        Pattern include = isBlank(includes) ? null : Pattern.compile(includes, JOOQ_REGEX_FLAGS);
+        Pattern exclude = isBlank(excludes) ? null : Pattern.compile(excludes, JOOQ_REGEX_FLAGS);
+        List<String> tables = new ArrayList<>();
+        for (String table : allTables) {
+            String qualified = schema + "." + table;
+            boolean included = include == null || include.matcher(table).matches() || include.matcher(qualified).matches();
+            boolean excluded = exclude != null && (exclude.matcher(table).matches() || exclude.matcher(qualified).matches());
+            if (included && !excluded) {
+                tables.add(table);
+            }
+        }
+
+        Map<String, String> parent = new HashMap<>();
+        tables.forEach(table -> parent.put(table, table));
+        for (String[] edge : foreignKeys) {
+            if (parent.containsKey(edge[0]) && parent.containsKey(edge[1])) {
+                parent.put(root(parent, edge[0]), root(parent, edge[1]));
+            }
+        }
+        Map<String, List<String>> components = new TreeMap<>();
+        for (String table : tables) {
+            components.computeIfAbsent(root(parent, table), key -> new ArrayList<>()).add(table);
+        }
+
+        List<List<String>> bins = new ArrayList<>();
+        if (!patterns.isEmpty()) {
+            List<Pattern> compiled = patterns.stream().map(pattern -> Pattern.compile(pattern, JOOQ_REGEX_FLAGS)).toList();
+            for (int i = 0; i <= compiled.size(); i++) {
+                bins.add(new ArrayList<>());
+            }
+            for (List<String> component : components.values()) {
+                String first = component.stream().sorted().findFirst().orElseThrow();
+                int bin = compiled.size();
+                for (int i = 0; i < compiled.size(); i++) {
+                    if (compiled.get(i).matcher(first).matches()) {
+                        bin = i;
+                        break;
+                    }
+                }
+                bins.get(bin).addAll(component);
+            }
+            // the remainder shard keeps the configured filters
+            bins.add(0, bins.remove(compiled.size()));
+        } else {
+            for (int i = 0; i < Math.max(shards, 1); i++) {
+                bins.add(new ArrayList<>());
+            }
+            // largest components first, each into the emptiest shard
+            components.values().stream()
+                .sorted(Comparator.comparingInt((List<String> component) -> component.size()).reversed())
+                .forEach(component -> bins.stream().min(Comparator.comparingInt(List::size)).orElseThrow().addAll(component));
+        }
+        bins.removeIf(List::isEmpty);
+        bins.forEach(bin -> bin.sort(null));
+        return bins;
+    }
+
+    /**
+     * The {@code includes}/{@code excludes} of shard {@code index} of {@code plan}.
+     */
+    static String[] filters(List<List<String>> plan, int index, String includes, String excludes) {
+        if (index > 0) {
+            return new String[] {exactly(plan.get(index)), excludes};
+        }
+        List<String> others = plan.subList(1, plan.size()).stream().flatMap(List::stream).toList();
+        String otherTables = exactly(others);
+        return new String[] {includes, isBlank(excludes) ? otherTables : "(?:" + excludes + ")|" + otherTables};
+    }
+
+    /**
+     * Moves the shards' output into {@code outputDirectory}, merging the files several shards wrote.
+     * Returns the number of merged files.
+     */
+    static long merge(List<File> shardDirectories, File outputDirectory) {
+        Path output = outputDirectory.toPath();
+        long merged = 0;
+        try {
+            for (File shard : shardDirectories) {
+                Path root = shard.toPath();
+                if (!Files.isDirectory(root)) {
+                    continue;
+                }
+                List<Path> files;
+                try (Stream<Path> paths = Files.walk(root)) {
+                    files = paths.filter(Files::isRegularFile).toList();
+                }
+                for (Path file : files) {
+                    Path target = output.resolve(root.relativize(file).toString());
+                    if (!Files.exists(target)) {
+                        Files.createDirectories(target.getParent());
+                        Files.move(file, target, StandardCopyOption.REPLACE_EXISTING);
+                        continue;
+                    }
+                    String existing = Files.readString(target, StandardCharsets.UTF_8);
+                    String incoming = Files.readString(file, StandardCharsets.UTF_8);
+                    if (!existing.equals(incoming) && file.toString().endsWith(".java")) {
+                        Files.writeString(target, JavaSourceMerge.merge(existing, incoming), StandardCharsets.UTF_8);
+                        merged++;
+                    }
+                }
+                GeneratedSources.deleteTree(root);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to merge jOOQ shards into " + outputDirectory, e);
+        }
+        return merged;
+    }
+
+    private static List<String> tables(Connection conn, String schema) throws SQLException {
+        TreeSet<String> tables = new TreeSet<>();
+        try (PreparedStatement stmt = conn.prepareStatement(
+            "SELECT table_name FROM information_schema.tables WHERE table_schema = ?")) {
+            stmt.setString(1, schema);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    tables.add(rs.getString(1));
+                }
+            }
+        }
+        return new ArrayList<>(tables);
+    }
+
+    private static List<String[]> foreignKeys(Connection conn, SupportedDatabase dbType, String schema) throws SQLException {
+        String sql = dbType == SupportedDatabase.POSTGRES
+            ? "SELECT src.relname, dst.relname FROM pg_constraint c"
+                + " JOIN pg_class src ON src.oid = c.conrelid JOIN pg_namespace sn ON sn.oid = src.relnamespace"
+                + " JOIN pg_class dst ON dst.oid = c.confrelid JOIN pg_namespace dn ON dn.oid = dst.relnamespace"
+                + " WHERE c.contype = 'f' AND sn.nspname = ? AND dn.nspname = ?"
+            : "SELECT table_name, referenced_table_name FROM information_schema.referential_constraints"
+                + " WHERE constraint_schema = ? AND unique_constraint_schema = ?";
+        List<String[]> edges = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, schema);
+            stmt.setString(2, schema);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    edges.add(new String[] {rs.getString(1), rs.getString(2)});
+                }
+            }
+        }
+        return edges;
+    }
+
+    private static String root(Map<String, String> parent, String table) {
+        String root = table;
+        while (!parent.get(root).equals(root)) {
+            root = parent.get(root);
+        }
+        parent.put(table, root);
+        return root;
+    }
+
+    private static String exactly(List<String> names) {
+        return names.stream().map(Pattern::quote).collect(Collectors.joining("|"));
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.gradle;
+
+import org.gradle.api.Project;
+import org.gradle.api.tasks.SourceSet;
+import org.gradle.api.tasks.SourceSetContainer;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Maps Flyway location strings onto project directories. Bare and {@code classpath:} locations are
+ * looked up in the main resource directories; schemes other than {@code filesystem:} are not resolvable.
+ */
+final class MigrationLocations {
+    private static final String FILESYSTEM_PREFIX = "filesystem:";
+    private static final String CLASSPATH_PREFIX = "classpath:";
+
+    private MigrationLocations() {
+    }
+
+    static List<File> resolveDirectories(Project project, List<String> locations) {
+        Set<File> directories = new LinkedHashSet<>();
+        for (String location : locations) {
+            if (location.startsWith(FILESYSTEM_PREFIX)) {
+                directories.add(project.file(location.substring(FILESYSTEM_PREFIX.length())));
+            } else if (isClasspath(location)) {
+                String path = stripLeadingSlash(location.startsWith(CLASSPATH_PREFIX)
+                    ? location.substring(CLASSPATH_PREFIX.length())
+                    : location);
+                for (File resourceDir : mainResourceDirectories(project)) {
+                    File candidate = new File(resourceDir, path);
+                    if (candidate.isDirectory()) {
+                        directories.add(candidate);
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(directories);
+    }
+
+    static boolean allResolvable(List<String> locations) {
+        return locations.stream().allMatch(MigrationLocations::isResolvable);
+    }
+
+    static List<String> toFlywayLocations(List<String> locations, List<File> directories) {
+        List<String> out = new ArrayList<>();
+        for (File directory : directories) {
+            out.add(FILESYSTEM_PREFIX + directory.getAbsolutePath());
+        }
+        for (String location : locations) {
+            if (!isResolvable(location)) {
+                out.add(location);
+            }
+        }
+        return out;
+    }
+
+    private static boolean isResolvable(String location) {
+        return location.startsWith(FILESYSTEM_PREFIX) || isClasspath(location);
+    }
+
+    private static boolean isClasspath(String location) {
+        return location.startsWith(CLASSPATH_PREFIX) || !location.contains(":");
+    }
+
+    private static String stripLeadingSlash(String path) {
+        return path.startsWith("/") ? path.substring(1) : path;
+    }
+
+    private static Set<File> mainResourceDirectories(Project project) {
+        SourceSetContainer sourceSets = project.getExtensions().findByType(SourceSetContainer.class);
+        if (sourceSets == null) {
+            return Set.of();
+        }
+        SourceSet main = sourceSets.findByName(SourceSet.MAIN_SOURCE_SET_NAME);
+        return main == null ? Set.of() : main.getResources().getSrcDirs();
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.gradle;
+
+import org.gradle.api.model.ObjectFactory;
+import org.gradle.api.provider.Property;
+
+import javax.inject.Inject;
+import java.time.Duration;
+
+public abstract class MigrationProfileSpec {
+    private final Property<Boolean> enabled;
+    private final Property<Boolean> statements;
+    private final Property<Duration> warnAfter;
+    private final Property<Duration> failAfter;
+
+    @Inject
+    public MigrationProfileSpec(ObjectFactory objects) {
+        this.enabled = objects.property(Boolean.class).convention(false);
+        this.statements = objects.property(Boolean.class).convention(false);
+        this.warnAfter = objects.property(Duration.class);
+        this.failAfter = objects.property(Duration.class);
+    }
+
+    public Property<Boolean> getEnabled() { return enabled; }
+    public Property<Boolean> getStatements() { return statements; }
+    public Property<Duration> getWarnAfter() { return warnAfter; }
+    public Property<Duration> getFailAfter() { return failAfter; }
+}
@@ -0,0 +1,341 @@
+package com.example.gradle;
+
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.callback.Callback;
+import org.flywaydb.core.api.callback.Context;
+import org.flywaydb.core.api.callback.Event;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records what every Flyway migration of a build costs: its duration, the rows its statements affected
+ * and, on MySQL/MariaDB, the InnoDB row lock waits while it ran (server-wide counters, so migrations that
+ * run at the same time on one server see each other's waits). Flyway's connections are wrapped to count
+ * rows; with {@code statements} the slowest statements of each migration are kept as well. The report
+ * ranks all migrations, slowest first.
+ */
+final class MigrationProfiler {
+    private static final Logger LOGGER = Logging.getLogger(MigrationProfiler.class);
+    private static final int SLOWEST_STATEMENTS = 5;
+    private static final int MAX_SQL_LENGTH = 200;
+
+    record StatementTiming(String sql, long durationMillis, long rowsAffected) {
+    }
+
+    record Migration(String configuration, String version, String description, String script, boolean failed,
+                     long durationMillis, long rowsAffected, long statements, long lockWaits, long lockWaitMillis,
+                     List<StatementTiming> slowestStatements) {
+    }
+
+    private final SupportedDatabase dbType;
+    private final boolean statements;
+    private final Duration warnAfter;
+    private final Duration failAfter;
+    private final List<Migration> migrations = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * {@code warnAfter} and {@code failAfter} may be null.
+     */
+    MigrationProfiler(SupportedDatabase dbType, boolean statements, Duration warnAfter, Duration failAfter) {
+        this.dbType = dbType;
+        this.statements = statements;
+        this.warnAfter = warnAfter;
+        this.failAfter = failAfter;
+    }
+
+    Recorder recorder(String configurationName) {
+        return new Recorder(configurationName);
+    }
+
+    boolean isEmpty() {
+        return migrations.isEmpty();
+    }
+
+    void write(File report) {
+        try {
+            Files.createDirectories(report.getParentFile().toPath());
+            Files.writeString(report.toPath(), toJson());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write " + report, e);
+        }
+    }
+
+    String toJson() {
+        List<Migration> ranked = ranked();
+        StringBuilder out = new StringBuilder("{\n  \"generatedAt\": ")
+            .append(CodegenTimings.quote(Instant.now().toString()))
+            .append(",\n  \"migrations\": [");
+        for (int i = 0; i < ranked.size(); i++) {
+            Migration migration = ranked.get(i);
+            out.append(i == 0 ? "\n" : ",\n")
+                .append("    {\"rank\": ").append(i + 1)
+                .append(", \"configuration\": ").append(CodegenTimings.quote(migration.configuration()))
+                .append(", \"version\": ").append(CodegenTimings.quote(migration.version()))
+                .append(", \"description\": ").append(CodegenTimings.quote(migration.description()))
+                .append(", \"script\": ").append(CodegenTimings.quote(migration.script()))
+                .append(", \"failed\": ").append(migration.failed())
+                .append(", \"durationMillis\": ").append(migration.durationMillis())
+                .append(", \"rowsAffected\": ").append(migration.rowsAffected())
+                .append(", \"statements\": ").append(migration.statements());
+            if (migration.lockWaits() >= 0) {
+                out.append(", \"lockWaits\": ").append(migration.lockWaits())
+                    .append(", \"lockWaitMillis\": ").append(migration.lockWaitMillis());
+            }
+            if (statements) {
+                out.append(", \"slowestStatements\": [");
+                List<StatementTiming> slowest = migration.slowestStatements();
+                for (int j = 0; j < slowest.size(); j++) {
+                    StatementTiming statement = slowest.get(j);
+                    out.append(j == 0 ? "" : ", ")
+                        .append("{\"sql\": ").append(CodegenTimings.quote(statement.sql()))
+                        .append(", \"durationMillis\": ").append(statement.durationMillis())
+                        .append(", \"rowsAffected\": ").append(statement.rowsAffected()).append('}');
+                }
+                out.append(']');
+            }
+            out.append('}');
+        }
+        return out.append(ranked.isEmpty() ? "]\n}\n" : "\n  ]\n}\n").toString();
+    }
+
+    List<String> summary(int count) {
+        List<String> lines = new ArrayList<>();
+        ranked().stream().limit(count).forEach(migration -> lines.add(String.format("%8d ms  %s %s (%s)",
+            migration.durationMillis(), migration.configuration(), migration.version(), migration.script())));
+        return lines;
+    }
+
+    private List<Migration> ranked() {
+        List<Migration> ranked;
+        synchronized (migrations) {
+            ranked = new ArrayList<>(migrations);
+        }
+        ranked.sort(Comparator.comparingLong(Migration::durationMillis).reversed());
+        return ranked;
+    }
+
+    /**
+     * Profiles one Flyway run: registered as its callback, and {@link #wrap(DataSource)} is its data source.
+     */
+    final class Recorder implements Callback {
+        private final String configurationName;
+        private final List<Migration> tooSlow = new ArrayList<>();
+        private volatile Running running;
+
+        private Recorder(String configurationName) {
+            this.configurationName = configurationName;
+        }
+
+        DataSource wrap(DataSource dataSource) {
+            return (DataSource) Proxy.newProxyInstance(MigrationProfiler.class.getClassLoader(), new Class<?>[] {DataSource.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(dataSource, method, args);
+                    return result instanceof Connection connection ? connection(connection) : result;
+                });
+        }
+
+        /**
+         * Fails if a migration of this run took longer than {@code failAfter}.
+         */
+        void check() {
+            if (tooSlow.isEmpty()) {
+                return;
+            }
+            List<String> descriptions = tooSlow.stream()
+                .map(migration -> migration.version() + " (" + migration.script() + ", " + migration.durationMillis() + " ms)")
+                .toList();
+            throw new IllegalStateException("Migrations of " + configurationName + " took longer than failAfter (" + failAfter
+                + "): " + String.join(", ", descriptions));
+        }
+
+        @Override
+        public boolean supports(Event event, Context context) {
+            return event == Event.BEFORE_EACH_MIGRATE || event == Event.AFTER_EACH_MIGRATE || event == Event.AFTER_EACH_MIGRATE_ERROR;
+        }
+
+        @Override
+        public boolean canHandleInTransaction(Event event, Context context) {
+            return true;
+        }
+
+        @Override
+        public void handle(Event event, Context context) {
+            if (event == Event.BEFORE_EACH_MIGRATE) {
+                // counters first, so the lookup does not count as a statement of the migration
+                long[] locks = lockCounters(context.getConnection());
+                running = new Running(context.getConfiguration().getTable().toLowerCase(Locale.ROOT), locks, System.nanoTime());
+                return;
+            }
+            Running migration = running;
+            running = null;
+            if (migration == null) {
+                return;
+            }
+            long durationMillis = (System.nanoTime() - migration.startNanos) / 1_000_000;
+            long[] locks = lockCounters(context.getConnection());
+            boolean measuredLocks = migration.locks != null && locks != null;
+            MigrationInfo info = context.getMigrationInfo();
+            List<StatementTiming> slowest;
+            synchronized (migration.statementTimings) {
+                slowest = migration.statementTimings.stream()
+                    .sorted(Comparator.comparingLong(StatementTiming::durationMillis).reversed())
+                    .limit(SLOWEST_STATEMENTS)
+                    .toList();
+            }
+            Migration recorded = new Migration(configurationName,
+                info == null || info.getVersion() == null ? "R" : info.getVersion().getVersion(),
+                info == null ? "" : info.getDescription(),
+                info == null ? "" : info.getScript(),
+                event == Event.AFTER_EACH_MIGRATE_ERROR,
+                durationMillis, migration.rows.get(), migration.statements.get(),
+                measuredLocks ? locks[0] - migration.locks[0] : -1,
+                measuredLocks ? locks[1] - migration.locks[1] : -1,
+                slowest);
+            migrations.add(recorded);
+            if (recorded.failed()) {
+                return;
+            }
+            if (failAfter != null && durationMillis > failAfter.toMillis()) {
+                tooSlow.add(recorded);
+            } else if (warnAfter != null && durationMillis > warnAfter.toMillis()) {
+                LOGGER.warn("Migration {} ({}) of {} took {} ms, more than warnAfter ({})", recorded.version(), recorded.script(),
+                    configurationName, durationMillis, warnAfter);
+            }
+        }
+
+        @Override
+        public String getCallbackName() {
+            return "testcontainers-jooq-profile";
+        }
+
+        private Connection connection(Connection raw) {
+            return (Connection) Proxy.newProxyInstance(MigrationProfiler.class.getClassLoader(), new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(raw, method, args);
+                    if (!(result instanceof Statement statement)) {
+                        return result;
+                    }
+                    String sql = args != null && args.length > 0 && args[0] instanceof String prepared ? prepared : null;
+                    return statement(statement, method.getReturnType(), sql);
+                });
+        }
+
+        private Statement statement(Statement raw, Class<?> type, String preparedSql) {
+            Class<?> iface = type == CallableStatement.class || type == PreparedStatement.class ? type : Statement.class;
+            return (Statement) Proxy.newProxyInstance(MigrationProfiler.class.getClassLoader(), new Class<?>[] {iface},
+                (proxy, method, args) -> {
+                    Running migration = running;
+                    if (migration == null || !method.getName().startsWith("execute")) {
+                        return invoke(raw, method, args);
+                    }
+                    String sql = args != null && args.length > 0 && args[0] instanceof String executed ? executed : preparedSql;
+                    long startNanos = System.nanoTime();
+                    Object result = invoke(raw, method, args);
+                    long durationMillis = (System.nanoTime() - startNanos) / 1_000_000;
+                    // Flyway's own bookkeeping runs on the same connections
+                    if (sql == null || !sql.toLowerCase(Locale.ROOT).contains(migration.historyTable)) {
+                        migration.record(sql, durationMillis, rowsAffected(raw, result));
+                    }
+                    return result;
+                });
+        }
+
+        private long[] lockCounters(Connection conn) {
+            if (dbType == SupportedDatabase.POSTGRES || conn == null) {
+                return null;
+            }
+            long[] counters = new long[2];
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SHOW GLOBAL STATUS WHERE Variable_name IN ('Innodb_row_lock_waits', 'Innodb_row_lock_time')")) {
+                while (rs.next()) {
+                    counters[rs.getString(1).equalsIgnoreCase("Innodb_row_lock_waits") ? 0 : 1] = rs.getLong(2);
+                }
+                return counters;
+            } catch (SQLException e) {
+                LOGGER.info("Could not read lock counters for {}: {}", configurationName, e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    private final class Running {
+        private final String historyTable;
+        private final long[] locks;
+        private final long startNanos;
+        private final AtomicLong rows = new AtomicLong();
+        private final AtomicLong statements = new AtomicLong();
+        private final List<StatementTiming> statementTimings = new ArrayList<>();
+
+        private Running(String historyTable, long[] locks, long startNanos) {
+            this.historyTable = historyTable;
+            this.locks = locks;
+            this.startNanos = startNanos;
+        }
+
+        private void record(String sql, long durationMillis, long rowsAffected) {
+            rows.addAndGet(rowsAffected);
+            statements.incrementAndGet();
+            if (MigrationProfiler.this.statements) {
+                String text = sql == null ? "" : sql.strip().replaceAll("\\s+", " ");
+                synchronized (statementTimings) {
+                    statementTimings.add(new StatementTiming(
+                        text.length() > MAX_SQL_LENGTH ? text.substring(0, MAX_SQL_LENGTH) + "..." : text, durationMillis, rowsAffected));
+                }
+            }
+        }
+    }
+
+    private static long rowsAffected(Statement raw, Object result) throws SQLException {
+        if (result instanceof Boolean hasResultSet) {
+            return hasResultSet ? 0 : Math.max(raw.getUpdateCount(), 0);
+        }
+        if (result instanceof Integer count) {
+            return Math.max(count, 0);
+        }
+        if (result instanceof Long count) {
+            return Math.max(count, 0);
+        }
+        long rows = 0;
+        if (result instanceof int[] counts) {
+            for (int count : counts) {
+                rows += Math.max(count, 0);
+            }
+        } else if (result instanceof long[] counts) {
+            for (long count : counts) {
+                rows += Math.max(count, 0);
+            }
+        }
+        return rows;
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.gradle;
+
+public enum PerformanceProfile {
+    /**
+     * The image's own server settings.
+     */
+    STANDARD,
+
+    /**
+     * Durability off and the data directory on tmpfs. Nothing the codegen database holds needs to
+     * survive a crash, so fsync, WAL/redo flushing, doublewrite and the binary log only cost time.
+     */
+    THROUGHPUT
+}
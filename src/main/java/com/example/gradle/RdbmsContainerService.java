@@ -1,24 +1,41 @@
 package com.example.gradle;
 
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.callback.Callback;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.flywaydb.core.api.exception.FlywayValidateException;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
 import org.gradle.api.provider.ListProperty;
 import org.gradle.api.provider.Property;
 import org.gradle.api.services.BuildService;
 import org.gradle.api.services.BuildServiceParameters;
-import org.testcontainers.containers.JdbcDatabaseContainer;
-import org.testcontainers.containers.MariaDBContainer;
-import org.testcontainers.containers.MySQLContainer;
-import org.testcontainers.containers.PostgreSQLContainer;
+import org.gradle.tooling.events.FinishEvent;
+import org.gradle.tooling.events.OperationCompletionListener;
+import org.testcontainers.utility.TestcontainersConfiguration;
 
+import java.io.File;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
-public abstract class RdbmsContainerService implements BuildService<RdbmsContainerService.Params>, AutoCloseable {
+public abstract class RdbmsContainerService
+    implements BuildService<RdbmsContainerService.Params>, OperationCompletionListener, AutoCloseable {
 
     public interface Params extends BuildServiceParameters {
         Property<SupportedDatabase> getDatabaseType();
@@ -26,46 +43,471 @@ public abstract class RdbmsContainerService implements BuildService<RdbmsContain
         Property<String> getUsername();
         Property<String> getPassword();
         ListProperty<String> getDatabaseNames();
+        Property<Boolean> getSnapshotsEnabled();
+        Property<Integer> getMaxSnapshots();
+        Property<Duration> getMaxSnapshotAge();
+        ConfigurableFileCollection getMigrationDirectories();
+        DirectoryProperty getRootDirectory();
+        Property<Boolean> getReuseEnabled();
+        Property<Duration> getReuseIdleTimeout();
+        DirectoryProperty getStateDirectory();
+        Property<Boolean> getContinuousBuild();
+        Property<Duration> getContinuousIdleTimeout();
+        RegularFileProperty getTimingsReport();
+        Property<Boolean> getTimingsSummary();
+        Property<Boolean> getPrewarm();
+        Property<PerformanceProfile> getPerformanceProfile();
+        Property<DatabaseBackend> getBackend();
+        DirectoryProperty getEmbeddedInstallDirectory();
+        ListProperty<String> getPrewarmDatabaseNames();
+        Property<String> getPrimaryDatabaseName();
+        Property<ReadinessStrategy> getReadinessStrategy();
+        Property<Duration> getReadinessInitialBackoff();
+        Property<Duration> getReadinessMaxBackoff();
+        Property<Duration> getReadinessTimeout();
+        Property<Boolean> getBrokerEnabled();
+        Property<Integer> getBrokerMaxConcurrentMigrations();
+        Property<Duration> getBrokerIdleTimeout();
+        Property<Boolean> getMigrationProfileEnabled();
+        Property<Boolean> getMigrationProfileStatements();
+        Property<Duration> getMigrationProfileWarnAfter();
+        Property<Duration> getMigrationProfileFailAfter();
+        RegularFileProperty getMigrationProfileReport();
     }
 
-    private JdbcDatabaseContainer<?> container;
-    private final Set<String> initializedNames = new LinkedHashSet<>();
+    private static final Logger LOGGER = Logging.getLogger(RdbmsContainerService.class);
+    private static final String FILESYSTEM_PREFIX = "filesystem:";
+    private static final int POOL_MAX_IDLE = 8;
 
-    public synchronized void ensureDatabases(List<String> namesFromJooq) {
+    // Guards container start/stop and schema creation only; once provisioned, readers never block and
+    // migrations for different configurations run concurrently.
+    private final Object provisioningLock = new Object();
+    private DatabaseServer server;
+    private volatile String jdbcUrl;
+    private String primaryName;
+    private HostBroker broker;
+    private String brokerServerUrl;
+    private final Set<String> initializedNames = ConcurrentHashMap.newKeySet();
+    private final Set<String> migratedConfigurations = ConcurrentHashMap.newKeySet();
+    private final ConcurrentMap<String, Object> migrationLocks = new ConcurrentHashMap<>();
+    private final Set<String> preparedTemplates = ConcurrentHashMap.newKeySet();
+    private final ConcurrentMap<String, String> cloneUrls = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ConnectionPool> pools = new ConcurrentHashMap<>();
+    private final CodegenTimings timings = new CodegenTimings();
+    private final MigrationProfiler profiler;
+    private final CompletableFuture<Void> prewarm;
+    private volatile boolean prewarmSettled;
+
+    /**
+     * With pre-warming enabled, the plugin registers this service as a task completion listener, so
+     * Gradle creates it as soon as execution starts and the container boots while other work runs.
+     */
+    public RdbmsContainerService() {
+        profiler = getParameters().getMigrationProfileEnabled().getOrElse(false)
+            ? new MigrationProfiler(getParameters().getDatabaseType().get(), getParameters().getMigrationProfileStatements().getOrElse(false),
+                getParameters().getMigrationProfileWarnAfter().getOrNull(), getParameters().getMigrationProfileFailAfter().getOrNull())
+            : null;
+        if (getParameters().getPrewarm().getOrElse(false)) {
+            List<String> names = getParameters().getPrewarmDatabaseNames().getOrElse(List.of());
+            prewarm = CompletableFuture.runAsync(
+                () -> timings.time("container.prewarm", "background", () -> provision(names)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "testcontainers-jooq-prewarm");
+                    thread.setDaemon(true);
+                    thread.start();
+                });
+        } else {
+            prewarm = null;
+        }
+    }
+
+    @Override
+    public void onFinish(FinishEvent event) {
+        // only registered to be instantiated early, see the constructor
+    }
+
+    /**
+     * Blocks until a running pre-warm finishes. A failed pre-warm is only logged; the caller provisions
+     * the container itself and reports the error if it fails again.
+     */
+    private void awaitPrewarm() {
+        if (prewarm == null || prewarmSettled) {
+            return;
+        }
+        long startMillis = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        try {
+            prewarm.join();
+        } catch (CompletionException e) {
+            if (!prewarmSettled) {
+                LOGGER.warn("Pre-warming the codegen database failed: {}", e.getCause() == null ? e : e.getCause().getMessage());
+            }
+        }
+        prewarmSettled = true;
+        long waitedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        if (waitedMillis > 0) {
+            timings.record("container.prewarmWait", Thread.currentThread().getName(), startMillis, waitedMillis, Map.of());
+        }
+    }
+
+    public void ensureDatabases(List<String> namesFromJooq) {
+        awaitPrewarm();
+        provision(namesFromJooq);
+    }
+
+    private void provision(List<String> namesFromJooq) {
         SupportedDatabase dbType = getParameters().getDatabaseType().get();
-        List<String> desiredNames = normalize(namesFromJooq);
+        List<String> desiredNames = new ArrayList<>();
+        String primary = getParameters().getPrimaryDatabaseName().getOrNull();
+        if (primary != null) {
+            desiredNames.add(primary);
+        }
+        desiredNames.addAll(namesFromJooq);
+        desiredNames = normalize(desiredNames);
         if (desiredNames.isEmpty()) {
             desiredNames = normalize(getParameters().getDatabaseNames().getOrElse(List.of("app")));
         }
         if (desiredNames.isEmpty()) {
             desiredNames = List.of("app");
         }
+        touchBrokerLease();
+        if (jdbcUrl != null && initializedNames.containsAll(desiredNames)) {
+            return;
+        }
+
+        synchronized (provisioningLock) {
+            if (jdbcUrl == null) {
+                primaryName = desiredNames.get(0);
+                if (getParameters().getBrokerEnabled().getOrElse(false)) {
+                    startBrokered(dbType, primaryName);
+                } else {
+                    startServer(primaryName);
+                    if (server.reused()) {
+                        resetPrimary(dbType, primaryName);
+                    }
+                }
+                initializedNames.add(primaryName);
+            }
+
+            List<String> extra = desiredNames.stream().filter(name -> !initializedNames.contains(name)).toList();
+            if (!extra.isEmpty()) {
+                createAdditional(dbType, extra.stream().map(this::physical).toList(), broker == null && server.reused());
+                initializedNames.addAll(extra);
+            }
+        }
+    }
+
+    /**
+     * Runs Flyway for {@code configurationName} of the project at {@code projectPath} once per build.
+     * Projects share the service, so everything kept per configuration is keyed by both.
+     */
+    public int migrate(String projectPath, String configurationName, List<String> locations, List<String> schemas,
+                       Map<String, String> options) {
+        String qualifiedName = qualifiedName(projectPath, configurationName);
+        synchronized (migrationLocks.computeIfAbsent(qualifiedName, name -> new Object())) {
+            if (migratedConfigurations.contains(qualifiedName)) {
+                return 0;
+            }
+            int applied = runFlyway(qualifiedName, getJdbcUrl(), locations, schemas, options);
+            migratedConfigurations.add(qualifiedName);
+            return applied;
+        }
+    }
+
+    /**
+     * Like {@link #migrate(String, String, List, List, Map)}, but Flyway only runs once per template: the
+     * first configuration of a group with identical migrations is migrated and the others get a copy of
+     * the result. On PostgreSQL every member, the template configuration included, gets its own clone
+     * database (see {@link #getJdbcUrl(String, String)}); on MySQL/MariaDB the template configuration's
+     * database is the source. Configurations that do not map to exactly one schema are migrated normally.
+     */
+    public int migrate(String projectPath, String configurationName, List<String> locations, List<String> schemas,
+                       Map<String, String> options, String templateName, String templateSchema) {
+        if (templateName == null || templateSchema == null || schemas.size() != 1 || broker != null) {
+            return migrate(projectPath, configurationName, locations, schemas, options);
+        }
+        SupportedDatabase dbType = getParameters().getDatabaseType().get();
+        String qualifiedName = qualifiedName(projectPath, configurationName);
+        String qualifiedTemplate = qualifiedName(projectPath, templateName);
+        int applied;
+        synchronized (migrationLocks.computeIfAbsent("template:" + qualifiedTemplate, name -> new Object())) {
+            applied = prepareTemplate(dbType, projectPath, qualifiedTemplate, templateSchema, locations, options);
+        }
+        synchronized (migrationLocks.computeIfAbsent(qualifiedName, name -> new Object())) {
+            if (migratedConfigurations.contains(qualifiedName)) {
+                return applied;
+            }
+            String schema = schemas.get(0);
+            long startMillis = System.currentTimeMillis();
+            long startNanos = System.nanoTime();
+            boolean cloned = cloneTemplate(dbType, projectPath, qualifiedName, templateSchema, schema);
+            if (cloned) {
+                timings.record("template.clone", qualifiedName, startMillis, (System.nanoTime() - startNanos) / 1_000_000, Map.of());
+            } else {
+                LOGGER.lifecycle("Template {} holds routines, triggers or events; migrating {} with Flyway", qualifiedTemplate, qualifiedName);
+                applied += runFlyway(qualifiedName, getJdbcUrl(), locations, schemas, options);
+            }
+            migratedConfigurations.add(qualifiedName);
+            return applied;
+        }
+    }
+
+    /**
+     * Migrates the template once; callers hold the template's lock. A template only counts as prepared
+     * once Flyway succeeded, so a failed migration is retried by the next member instead of being cloned.
+     */
+    private int prepareTemplate(SupportedDatabase dbType, String projectPath, String templateName, String templateSchema,
+                                List<String> locations, Map<String, String> options) {
+        if (preparedTemplates.contains(templateName)) {
+            return 0;
+        }
+        if (dbType != SupportedDatabase.POSTGRES) {
+            int applied = runFlyway(templateName, getJdbcUrl(), locations, List.of(templateSchema), options);
+            migratedConfigurations.add(templateName);
+            preparedTemplates.add(templateName);
+            return applied;
+        }
+        // a scratch database nobody connects to, so CREATE DATABASE ... TEMPLATE can copy it
+        String database = SchemaTemplates.templateDatabase(projectPath, templateSchema);
+        try (Connection conn = pool(getJdbcUrl()).getConnection()) {
+            SchemaTemplates.recreatePostgresDatabase(conn, database, null);
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to create template database " + database, e);
+        }
+        String url = SchemaTemplates.withDatabase(getJdbcUrl(), database);
+        int applied;
+        try {
+            applied = runFlyway(templateName, url, locations, List.of(templateSchema), options);
+        } catch (RuntimeException e) {
+            closePool(url);
+            try (Connection conn = pool(getJdbcUrl()).getConnection()) {
+                SchemaTemplates.dropPostgresDatabase(conn, database);
+            } catch (SQLException dropFailure) {
+                e.addSuppressed(dropFailure);
+            }
+            throw e;
+        }
+        // CREATE DATABASE ... TEMPLATE fails while anything is connected to the template
+        closePool(url);
+        preparedTemplates.add(templateName);
+        return applied;
+    }
+
+    private boolean cloneTemplate(SupportedDatabase dbType, String projectPath, String qualifiedName, String templateSchema,
+                                  String schema) {
+        try (Connection conn = pool(getJdbcUrl()).getConnection()) {
+            if (dbType != SupportedDatabase.POSTGRES) {
+                return templateSchema.equals(schema) || SchemaTemplates.copyMySqlDatabase(conn, templateSchema, schema);
+            }
+            String database = SchemaTemplates.cloneDatabase(projectPath, schema);
+            SchemaTemplates.recreatePostgresDatabase(conn, database, SchemaTemplates.templateDatabase(projectPath, templateSchema));
+            String url = SchemaTemplates.withDatabase(getJdbcUrl(), database);
+            try (Connection clone = pool(url).getConnection()) {
+                SchemaTemplates.renamePostgresSchema(clone, templateSchema, schema);
+            }
+            cloneUrls.put(qualifiedName, url);
+            return true;
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to copy template " + templateSchema + " to " + schema, e);
+        }
+    }
+
+    /**
+     * {@code configurationName} as Gradle would write it under {@code projectPath}, such as
+     * {@code :app:main}.
+     */
+    private static String qualifiedName(String projectPath, String configurationName) {
+        return (projectPath.endsWith(":") ? projectPath : projectPath + ":") + configurationName;
+    }
+
+    private int runFlyway(String configurationName, String url, List<String> locations, List<String> schemas,
+                          Map<String, String> options) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        options.forEach((key, value) -> properties.put(key.startsWith("flyway.") ? key : "flyway." + key, value));
+
+        MigrationProfiler.Recorder recorder = profiler == null ? null : profiler.recorder(configurationName);
+        FluentConfiguration configuration = Flyway.configure(RdbmsContainerService.class.getClassLoader())
+            .configuration(properties)
+            .dataSource(recorder == null ? pool(url) : recorder.wrap(pool(url)))
+            .locations(locations.toArray(String[]::new))
+            .schemas(schemas.stream().map(this::physical).toArray(String[]::new));
+        if (recorder != null) {
+            List<Callback> callbacks = new ArrayList<>(List.of(configuration.getCallbacks()));
+            callbacks.add(recorder);
+            configuration.callbacks(callbacks.toArray(Callback[]::new));
+        }
+        Flyway flyway = configuration.load();
+        List<File> directories = locations.stream()
+            .filter(location -> location.startsWith(FILESYSTEM_PREFIX))
+            .map(location -> new File(location.substring(FILESYSTEM_PREFIX.length())))
+            .toList();
+        touchBrokerLease();
+        HostBroker.Slot slot = acquireMigrationSlot(configurationName);
+        long startMillis = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        int applied;
+        try {
+            try {
+                applied = flyway.migrate().migrationsExecuted;
+            } catch (FlywayValidateException e) {
+                if (!server.warm()) {
+                    throw e;
+                }
+                // a warm container only has to start over when an already applied migration was edited
+                LOGGER.lifecycle("Applied migrations changed ({}); recreating {}", e.getMessage(), schemas);
+                resetSchemas(schemas);
+                applied = flyway.migrate().migrationsExecuted;
+            }
+            timings.record("flyway.migrate", configurationName, startMillis, (System.nanoTime() - startNanos) / 1_000_000,
+                Map.of("migrationsApplied", (long) applied));
+            loadSeeds(configurationName, url, schemas, directories);
+        } finally {
+            slot.close();
+        }
+        server.migrated(directories, applied);
+        if (recorder != null) {
+            recorder.check();
+        }
+        return applied;
+    }
+
+    /**
+     * Loads the {@link SeedData} files of a configuration's migration directories after its migrations.
+     */
+    private void loadSeeds(String configurationName, String url, List<String> schemas, List<File> directories) {
+        List<SeedData.Seed> seeds = SeedData.find(directories);
+        if (seeds.isEmpty()) {
+            return;
+        }
+        SupportedDatabase dbType = getParameters().getDatabaseType().get();
+        long startMillis = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        long rows;
+        try (Connection conn = pool(SeedData.jdbcUrl(dbType, url)).getConnection()) {
+            rows = SeedData.load(conn, dbType, seeds, schemas.isEmpty() ? null : physical(schemas.get(0)), this::physical);
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to load seed data of " + configurationName, e);
+        }
+        timings.record("seed.load", configurationName, startMillis, (System.nanoTime() - startNanos) / 1_000_000,
+            Map.of("files", (long) seeds.size(), "rows", rows));
+    }
 
-        if (container == null) {
-            startContainer(dbType, desiredNames.get(0));
-            initializedNames.add(desiredNames.get(0));
+    /**
+     * Marks this build's namespace as in use; besides the heartbeat, every provision, migration and
+     * generation does, so a stalled heartbeat alone never makes a working build look abandoned.
+     */
+    private void touchBrokerLease() {
+        HostBroker activeBroker = broker;
+        if (activeBroker != null) {
+            activeBroker.touchLease();
         }
+    }
 
-        List<String> extra = desiredNames.stream().filter(name -> !initializedNames.contains(name)).toList();
-        if (!extra.isEmpty()) {
-            createAdditional(dbType, extra);
-            initializedNames.addAll(extra);
+    /**
+     * With the broker, waits for one of the shared server's migration slots; otherwise a no-op.
+     */
+    private HostBroker.Slot acquireMigrationSlot(String configurationName) {
+        if (broker == null) {
+            return () -> {
+            };
+        }
+        long startMillis = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        HostBroker.Slot slot = broker.acquireMigrationSlot();
+        long waitedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        if (waitedMillis > 0) {
+            timings.record("broker.migrationWait", configurationName, startMillis, waitedMillis, Map.of());
+        }
+        return slot;
+    }
+
+    private void resetSchemas(List<String> schemas) {
+        SupportedDatabase dbType = getParameters().getDatabaseType().get();
+        synchronized (provisioningLock) {
+            if (schemas.isEmpty()) {
+                resetPrimary(dbType, primaryName);
+            } else {
+                createAdditional(dbType, schemas.stream().map(this::physical).toList(), true);
+            }
+        }
+    }
+
+    /**
+     * Writes a jOOQ XML export of {@code schemas} as migrated for {@code configurationName} of the
+     * project at {@code projectPath}.
+     */
+    public void exportSchema(String projectPath, String configurationName, List<String> schemas, File target) {
+        long startMillis = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        try (Connection conn = pool(getJdbcUrl(projectPath, configurationName)).getConnection()) {
+            SchemaXmlSnapshots.export(conn, getParameters().getDatabaseType().get(), schemas.stream().map(this::physical).toList(), target);
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to export " + schemas + " for " + configurationName, e);
+        }
+        timings.record("xml.export", qualifiedName(projectPath, configurationName), startMillis, (System.nanoTime() - startNanos) / 1_000_000, Map.of());
+    }
+
+    /**
+     * Groups the tables and views of {@code schema} (its name on the server) into shards, see
+     * {@link JooqShards#plan}.
+     */
+    public List<List<String>> planShards(String projectPath, String configurationName, String schema, int shards,
+                                         List<String> patterns, String includes, String excludes) {
+        long startMillis = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        List<List<String>> plan;
+        try (Connection conn = pool(getJdbcUrl(projectPath, configurationName)).getConnection()) {
+            plan = JooqShards.plan(conn, getParameters().getDatabaseType().get(), schema, shards, patterns, includes, excludes);
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to plan jOOQ shards of " + schema + " for " + configurationName, e);
         }
+        timings.record("jooq.shardPlan", qualifiedName(projectPath, configurationName), startMillis, (System.nanoTime() - startNanos) / 1_000_000,
+            Map.of("shards", (long) plan.size(), "tables", (long) plan.stream().mapToInt(List::size).sum()));
+        return plan;
+    }
+
+    public void recordPhase(String name, String subject, long startEpochMillis, long durationMillis, Map<String, Long> counters) {
+        timings.record(name, subject, startEpochMillis, durationMillis, counters);
     }
 
     public String getJdbcUrl() {
         ensureDatabases(List.of());
-        return container.getJdbcUrl();
+        return jdbcUrl;
+    }
+
+    /**
+     * The JDBC URL jOOQ should read {@code configurationName} of the project at {@code projectPath} from:
+     * its template clone if it has one.
+     */
+    public String getJdbcUrl(String projectPath, String configurationName) {
+        String url = getJdbcUrl();
+        touchBrokerLease();
+        return configurationName == null ? url : cloneUrls.getOrDefault(qualifiedName(projectPath, configurationName), url);
+    }
+
+    /**
+     * The name {@code schema} has on the server: on MySQL/MariaDB with the broker it lives in this
+     * build's namespace, everywhere else it keeps its name.
+     */
+    public String getPhysicalSchema(String schema) {
+        ensureDatabases(List.of());
+        return physical(schema);
+    }
+
+    private String physical(String name) {
+        return broker == null || getParameters().getDatabaseType().get() == SupportedDatabase.POSTGRES
+            ? name
+            : broker.physicalName(name);
     }
 
     public String getUsername() {
         ensureDatabases(List.of());
-        return container.getUsername();
+        return getParameters().getUsername().get();
     }
 
     public String getPassword() {
         ensureDatabases(List.of());
-        return container.getPassword();
+        return getParameters().getPassword().get();
     }
 
     public String getJdbcDriver() {
@@ -76,44 +518,135 @@ public abstract class RdbmsContainerService implements BuildService<RdbmsContain
         return getParameters().getDatabaseType().get().getJooqDatabaseClass();
     }
 
-    private void startContainer(SupportedDatabase dbType, String primaryName) {
+    /**
+     * Starts the configured backend, or continues or attaches to a kept container, see
+     * {@link ContainerServer}.
+     */
+    private void startServer(String primaryName) {
+        DatabaseServer started = switch (getParameters().getBackend().getOrElse(DatabaseBackend.TESTCONTAINERS)) {
+            case EMBEDDED -> new EmbeddedServer(getParameters().getDatabaseType().get(),
+                getParameters().getEmbeddedInstallDirectory().isPresent()
+                    ? getParameters().getEmbeddedInstallDirectory().get().getAsFile()
+                    : null,
+                getParameters().getUsername().get(), getParameters().getPassword().get(), primaryName,
+                getParameters().getStateDirectory().get().getAsFile(),
+                getParameters().getPerformanceProfile().getOrElse(PerformanceProfile.STANDARD), timings);
+            case TESTCONTAINERS -> new ContainerServer(getParameters(), primaryName, null, timings, () -> Set.copyOf(initializedNames));
+        };
+        started.start();
+        server = started;
+        initializedNames.addAll(started.initializedNames());
+        jdbcUrl = started.jdbcUrl();
+    }
+
+    /**
+     * Attaches to (or starts) the host's shared server under the broker's lock and creates this build's
+     * namespace on it.
+     */
+    private void startBrokered(SupportedDatabase dbType, String primaryName) {
         String image = getParameters().getDockerImage().isPresent()
             ? getParameters().getDockerImage().get()
             : dbType.getDefaultImage();
         String user = getParameters().getUsername().get();
         String pass = getParameters().getPassword().get();
+        broker = new HostBroker(dbType, image, user, pass, getParameters().getStateDirectory().get().getAsFile(),
+            getParameters().getBrokerMaxConcurrentMigrations().getOrElse(2),
+            getParameters().getBrokerIdleTimeout().getOrElse(Duration.ofMinutes(30)));
+        broker.touchLease();
+        if (!TestcontainersConfiguration.getInstance().environmentSupportsReuse()) {
+            LOGGER.warn("testcontainers.reuse.enable is not set; the shared {} server goes away with this Gradle daemon", dbType);
+        }
+        ContainerServer shared = new ContainerServer(getParameters(), HostBroker.SERVER_DATABASE, broker, timings, Set::of);
+        broker.withServerLock(() -> {
+            shared.start();
+            return null;
+        });
+        server = shared;
+        brokerServerUrl = shared.jdbcUrl();
+        broker.startHeartbeat(shared::touchLease);
+
+        long startMillis = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        String database = broker.physicalName(primaryName);
+        try (Connection conn = pool(brokerServerUrl).getConnection();
+             Statement stmt = conn.createStatement()) {
+            broker.dropAbandoned(conn);
+            if (dbType == SupportedDatabase.POSTGRES) {
+                stmt.execute("CREATE DATABASE \"" + database.replace("\"", "\"\"") + "\"");
+            } else {
+                stmt.execute("CREATE DATABASE `" + database.replace("`", "``") + "`");
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to create namespace " + broker.namespace() + " on the shared server", e);
+        }
+        // the namespace database is all this build needs; do not keep connections to the server's own
+        closePool(brokerServerUrl);
+        timings.record("broker.namespace", broker.namespace(), startMillis, (System.nanoTime() - startNanos) / 1_000_000, Map.of());
+        jdbcUrl = SchemaTemplates.withDatabase(brokerServerUrl, database);
+        LOGGER.lifecycle("Using shared {} server {} in namespace {}", dbType, shared.id(), broker.namespace());
+    }
 
-        switch (dbType) {
-            case POSTGRES -> container = new PostgreSQLContainer<>(image)
-                .withDatabaseName(primaryName)
-                .withUsername(user)
-                .withPassword(pass);
-            case MYSQL -> container = new MySQLContainer<>(image)
-                .withDatabaseName(primaryName)
-                .withUsername(user)
-                .withPassword(pass);
-            default -> container = new MariaDBContainer<>(image)
-                .withDatabaseName(primaryName)
-                .withUsername(user)
-                .withPassword(pass);
-        }
-        container.start();
-    }
-
-    private void createAdditional(SupportedDatabase dbType, List<String> names) {
-        try (Connection conn = DriverManager.getConnection(container.getJdbcUrl(), container.getUsername(), container.getPassword());
+    private void releaseNamespace() {
+        broker.stopHeartbeat();
+        long startMillis = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        try (Connection conn = DriverManager.getConnection(brokerServerUrl, getParameters().getUsername().get(),
+            getParameters().getPassword().get())) {
+            broker.dropNamespace(conn);
+        } catch (SQLException e) {
+            LOGGER.warn("Failed to drop namespace {}; a later build drops it once its lease expires: {}",
+                broker.namespace(), e.getMessage());
+        }
+        timings.record("broker.drop", broker.namespace(), startMillis, (System.nanoTime() - startNanos) / 1_000_000, Map.of());
+    }
+
+    private void createAdditional(SupportedDatabase dbType, List<String> names, boolean recreate) {
+        long startMillis = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        try (Connection conn = pool(jdbcUrl).getConnection();
              Statement stmt = conn.createStatement()) {
+            // one batch instead of a round trip per statement; many tenant schemas otherwise add up
             for (String name : names) {
                 String escaped = name.replace("`", "``").replace("\"", "\"\"");
                 if (dbType == SupportedDatabase.POSTGRES) {
-                    stmt.execute("CREATE SCHEMA IF NOT EXISTS \"" + escaped + "\"");
+                    if (recreate) {
+                        stmt.addBatch("DROP SCHEMA IF EXISTS \"" + escaped + "\" CASCADE");
+                    }
+                    stmt.addBatch("CREATE SCHEMA IF NOT EXISTS \"" + escaped + "\"");
                 } else {
-                    stmt.execute("CREATE DATABASE IF NOT EXISTS `" + escaped + "`");
+                    if (recreate) {
+                        stmt.addBatch("DROP DATABASE IF EXISTS `" + escaped + "`");
+                    }
+                    stmt.addBatch("CREATE DATABASE IF NOT EXISTS `" + escaped + "`");
                 }
             }
+            stmt.executeBatch();
         } catch (SQLException e) {
             throw new RuntimeException("Failed to create additional databases/schemas", e);
         }
+        timings.record(recreate ? "schema.recreate" : "schema.create", String.join(",", names), startMillis,
+            (System.nanoTime() - startNanos) / 1_000_000, Map.of("schemas", (long) names.size()));
+    }
+
+    private void resetPrimary(SupportedDatabase dbType, String primaryName) {
+        long startMillis = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        String escaped = primaryName.replace("`", "``").replace("\"", "\"\"");
+        try (Connection conn = pool(jdbcUrl).getConnection();
+             Statement stmt = conn.createStatement()) {
+            if (dbType == SupportedDatabase.POSTGRES) {
+                // the primary name is the database itself; Flyway may still have created a schema of that name
+                stmt.execute("DROP SCHEMA IF EXISTS \"" + escaped + "\" CASCADE");
+                stmt.execute("DROP SCHEMA IF EXISTS public CASCADE");
+                stmt.execute("CREATE SCHEMA public");
+            } else {
+                stmt.execute("DROP DATABASE IF EXISTS `" + escaped + "`");
+                stmt.execute("CREATE DATABASE `" + escaped + "`");
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to reset reused database " + primaryName, e);
+        }
+        timings.record("schema.reset", primaryName, startMillis, (System.nanoTime() - startNanos) / 1_000_000, Map.of());
     }
 
     private static List<String> normalize(List<String> values) {
@@ -131,12 +664,84 @@ public abstract class RdbmsContainerService implements BuildService<RdbmsContain
         return new ArrayList<>(normalized);
     }
 
+    /**
+     * The shared connections to {@code url}, for the service's own statements and for Flyway.
+     */
+    private ConnectionPool pool(String url) {
+        return pools.computeIfAbsent(url, key -> new ConnectionPool(key, getParameters().getUsername().get(),
+            getParameters().getPassword().get(), POOL_MAX_IDLE));
+    }
+
+    private void closePool(String url) {
+        ConnectionPool pool = pools.remove(url);
+        if (pool != null) {
+            pool.close();
+            timings.record("jdbc.pool", url, System.currentTimeMillis(), 0,
+                Map.of("connectionsOpened", (long) pool.opened(), "connectionsBorrowed", (long) pool.borrowed()));
+        }
+    }
+
     @Override
-    public synchronized void close() {
-        if (container != null) {
-            container.stop();
-            container = null;
-            initializedNames.clear();
+    public void close() {
+        awaitPrewarm();
+        synchronized (provisioningLock) {
+            if (jdbcUrl != null) {
+                shutdown();
+            }
+            writeTimings();
+            writeMigrationProfile();
+        }
+    }
+
+    private void writeTimings() {
+        if (timings.isEmpty() || !getParameters().getTimingsReport().isPresent()) {
+            return;
+        }
+        File report = getParameters().getTimingsReport().get().getAsFile();
+        try {
+            timings.write(report);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Failed to write codegen timings: {}", e.getMessage());
+            return;
+        }
+        if (getParameters().getTimingsSummary().getOrElse(false)) {
+            LOGGER.lifecycle("Codegen timings (details in {}):", report);
+            timings.summary().forEach(line -> LOGGER.lifecycle("  {}", line));
+        }
+    }
+
+    private void writeMigrationProfile() {
+        if (profiler == null || profiler.isEmpty() || !getParameters().getMigrationProfileReport().isPresent()) {
+            return;
+        }
+        File report = getParameters().getMigrationProfileReport().get().getAsFile();
+        try {
+            profiler.write(report);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Failed to write migration profile: {}", e.getMessage());
+            return;
+        }
+        if (getParameters().getTimingsSummary().getOrElse(false)) {
+            LOGGER.lifecycle("Slowest migrations (details in {}):", report);
+            profiler.summary(5).forEach(line -> LOGGER.lifecycle("  {}", line));
+        }
+    }
+
+    private void shutdown() {
+        pools.keySet().forEach(this::closePool);
+        if (broker != null) {
+            releaseNamespace();
         }
+        server.stop();
+        server = null;
+        jdbcUrl = null;
+        primaryName = null;
+        broker = null;
+        brokerServerUrl = null;
+        initializedNames.clear();
+        migratedConfigurations.clear();
+        migrationLocks.clear();
+        preparedTemplates.clear();
+        cloneUrls.clear();
     }
 }
@@ -0,0 +1,27 @@
+package com.example.gradle;
+
+import org.gradle.api.model.ObjectFactory;
+import org.gradle.api.provider.Property;
+
+import javax.inject.Inject;
+import java.time.Duration;
+
+public abstract class ReadinessSpec {
+    private final Property<ReadinessStrategy> strategy;
+    private final Property<Duration> initialBackoff;
+    private final Property<Duration> maxBackoff;
+    private final Property<Duration> timeout;
+
+    @Inject
+    public ReadinessSpec(ObjectFactory objects) {
+        this.strategy = objects.property(ReadinessStrategy.class).convention(ReadinessStrategy.JDBC);
+        this.initialBackoff = objects.property(Duration.class).convention(Duration.ofMillis(20));
+        this.maxBackoff = objects.property(Duration.class).convention(Duration.ofMillis(200));
+        this.timeout = objects.property(Duration.class).convention(Duration.ofMinutes(2));
+    }
+
+    public Property<ReadinessStrategy> getStrategy() { return strategy; }
+    public Property<Duration> getInitialBackoff() { return initialBackoff; }
+    public Property<Duration> getMaxBackoff() { return maxBackoff; }
+    public Property<Duration> getTimeout() { return timeout; }
+}
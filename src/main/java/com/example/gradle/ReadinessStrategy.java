@@ -0,0 +1,20 @@
+package com.example.gradle;
+
+public enum ReadinessStrategy {
+    /**
+     * Connect and run {@code SELECT 1} in a loop with exponential backoff until it succeeds.
+     */
+    JDBC,
+
+    /**
+     * Like {@link #JDBC}, but only probe once Docker reports the container healthy. Only useful for
+     * images that declare a {@code HEALTHCHECK}; without one this is the same as {@link #JDBC}.
+     */
+    HEALTHCHECK,
+
+    /**
+     * Testcontainers' own wait strategies (log messages for PostgreSQL, a fixed-interval JDBC loop for
+     * MySQL/MariaDB).
+     */
+    TESTCONTAINERS
+}
@@ -0,0 +1,21 @@
+package com.example.gradle;
+
+import org.gradle.api.model.ObjectFactory;
+import org.gradle.api.provider.Property;
+
+import javax.inject.Inject;
+import java.time.Duration;
+
+public abstract class ReuseSpec {
+    private final Property<Boolean> enabled;
+    private final Property<Duration> idleTimeout;
+
+    @Inject
+    public ReuseSpec(ObjectFactory objects) {
+        this.enabled = objects.property(Boolean.class).convention(false);
+        this.idleTimeout = objects.property(Duration.class).convention(Duration.ofMinutes(30));
+    }
+
+    public Property<Boolean> getEnabled() { return enabled; }
+    public Property<Duration> getIdleTimeout() { return idleTimeout; }
+}
@@ -0,0 +1,218 @@
+package com.example.gradle;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Copies a migrated template into further schemas/databases. PostgreSQL clones whole databases with
+ * {@code CREATE DATABASE ... TEMPLATE} and renames the schema; MySQL/MariaDB replay the template's
+ * table and view DDL and copy its rows, which includes Flyway's history table.
+ */
+final class SchemaTemplates {
+    private static final int POSTGRES_MAX_IDENTIFIER = 63;
+    private static final Pattern URL_DATABASE = Pattern.compile("^(jdbc:[a-z]+://[^/]+/)([^?;]*)(.*)$");
+
+    private SchemaTemplates() {
+    }
+
+    /**
+     * The databases of different projects sharing a server must not collide, so outside the root project
+     * the names carry a hash of {@code projectPath}.
+     */
+    static String templateDatabase(String projectPath, String templateSchema) {
+        return postgresName("tcj_template_", projectScoped(projectPath, templateSchema));
+    }
+
+    static String cloneDatabase(String projectPath, String schema) {
+        return postgresName("tcj_", projectScoped(projectPath, schema));
+    }
+
+    static String withDatabase(String jdbcUrl, String database) {
+        Matcher matcher = URL_DATABASE.matcher(jdbcUrl);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Cannot derive a JDBC URL for database " + database + " from " + jdbcUrl);
+        }
+        return matcher.group(1) + database + matcher.group(3);
+    }
+
+    static void recreatePostgresDatabase(Connection admin, String database, String template) throws SQLException {
+        String quoted = quotePostgres(database);
+        try (Statement stmt = admin.createStatement()) {
+            stmt.execute("DROP DATABASE IF EXISTS " + quoted);
+            if (template == null) {
+                stmt.execute("CREATE DATABASE " + quoted);
+                return;
+            }
+            // FILE_COPY (15+) copies the template's files instead of WAL-logging every block, which is
+            // faster for the small databases codegen works with
+            String strategy = admin.getMetaData().getDatabaseMajorVersion() >= 15 ? " STRATEGY FILE_COPY" : "";
+            stmt.execute("CREATE DATABASE " + quoted + " TEMPLATE " + quotePostgres(template) + strategy);
+        }
+    }
+
+    static void dropPostgresDatabase(Connection admin, String database) throws SQLException {
+        try (Statement stmt = admin.createStatement()) {
+            stmt.execute("DROP DATABASE IF EXISTS " + quotePostgres(database));
+        }
+    }
+
+    static void renamePostgresSchema(Connection clone, String from, String to) throws SQLException {
+        if (from.equals(to)) {
+            return;
+        }
+        try (Statement stmt = clone.createStatement()) {
+            stmt.execute("ALTER SCHEMA " + quotePostgres(from) + " RENAME TO " + quotePostgres(to));
+        }
+    }
+
+    /**
+     * Replaces {@code target} with a copy of {@code source}. Returns false without touching anything when
+     * the source holds routines, triggers or events, whose DDL is not replayed.
+     */
+    static boolean copyMySqlDatabase(Connection conn, String source, String target) throws SQLException {
+        if (count(conn, "SELECT COUNT(*) FROM information_schema.ROUTINES WHERE ROUTINE_SCHEMA = ?", source)
+            + count(conn, "SELECT COUNT(*) FROM information_schema.TRIGGERS WHERE TRIGGER_SCHEMA = ?", source)
+            + count(conn, "SELECT COUNT(*) FROM information_schema.EVENTS WHERE EVENT_SCHEMA = ?", source) > 0) {
+            return false;
+        }
+
+        Map<String, String> tables = new LinkedHashMap<>();
+        try (PreparedStatement query = conn.prepareStatement(
+            "SELECT TABLE_NAME, TABLE_TYPE FROM information_schema.TABLES WHERE TABLE_SCHEMA = ? ORDER BY TABLE_NAME")) {
+            query.setString(1, source);
+            try (ResultSet rs = query.executeQuery()) {
+                while (rs.next()) {
+                    tables.put(rs.getString(1), rs.getString(2));
+                }
+            }
+        }
+        String charset = null;
+        String collation = null;
+        try (PreparedStatement query = conn.prepareStatement(
+            "SELECT DEFAULT_CHARACTER_SET_NAME, DEFAULT_COLLATION_NAME FROM information_schema.SCHEMATA WHERE SCHEMA_NAME = ?")) {
+            query.setString(1, source);
+            try (ResultSet rs = query.executeQuery()) {
+                if (rs.next()) {
+                    charset = rs.getString(1);
+                    collation = rs.getString(2);
+                }
+            }
+        }
+
+        String src = quoteMySql(source);
+        String tgt = quoteMySql(target);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("SET FOREIGN_KEY_CHECKS = 0");
+            try {
+                stmt.execute("DROP DATABASE IF EXISTS " + tgt);
+                stmt.execute("CREATE DATABASE " + tgt
+                    + (charset == null ? "" : " CHARACTER SET " + charset + " COLLATE " + collation));
+                stmt.execute("USE " + tgt);
+
+                List<String> views = new ArrayList<>();
+                for (Map.Entry<String, String> table : tables.entrySet()) {
+                    if ("VIEW".equals(table.getValue())) {
+                        views.add(table.getKey());
+                        continue;
+                    }
+                    String name = quoteMySql(table.getKey());
+                    stmt.execute(showCreate(stmt, "SHOW CREATE TABLE " + src + "." + name));
+                    String columns = String.join(", ", copyableColumns(conn, source, table.getKey()));
+                    if (!columns.isEmpty()) {
+                        stmt.execute("INSERT INTO " + tgt + "." + name + " (" + columns + ") SELECT " + columns
+                            + " FROM " + src + "." + name);
+                    }
+                }
+                createViews(stmt, src, tgt, views);
+            } finally {
+                stmt.execute("SET FOREIGN_KEY_CHECKS = 1");
+            }
+        }
+        return true;
+    }
+
+    private static void createViews(Statement stmt, String src, String tgt, List<String> views) throws SQLException {
+        // views may select from each other; create whatever resolves until nothing is left or nothing progresses
+        List<String> pending = new ArrayList<>(views);
+        SQLException last = null;
+        while (!pending.isEmpty()) {
+            List<String> failed = new ArrayList<>();
+            for (String view : pending) {
+                String ddl = showCreate(stmt, "SHOW CREATE VIEW " + src + "." + quoteMySql(view)).replace(src + ".", tgt + ".");
+                try {
+                    stmt.execute(ddl);
+                } catch (SQLException e) {
+                    failed.add(view);
+                    last = e;
+                }
+            }
+            if (failed.size() == pending.size()) {
+                throw last;
+            }
+            pending = failed;
+        }
+    }
+
+    private static List<String> copyableColumns(Connection conn, String schema, String table) throws SQLException {
+        List<String> columns = new ArrayList<>();
+        try (PreparedStatement query = conn.prepareStatement(
+            "SELECT COLUMN_NAME FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = ? AND TABLE_NAME = ?"
+                + " AND (GENERATION_EXPRESSION IS NULL OR GENERATION_EXPRESSION = '') ORDER BY ORDINAL_POSITION")) {
+            query.setString(1, schema);
+            query.setString(2, table);
+            try (ResultSet rs = query.executeQuery()) {
+                while (rs.next()) {
+                    columns.add(quoteMySql(rs.getString(1)));
+                }
+            }
+        }
+        return columns;
+    }
+
+    private static String showCreate(Statement stmt, String sql) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery(sql)) {
+            if (!rs.next()) {
+                throw new SQLException("No result for " + sql);
+            }
+            return rs.getString(2);
+        }
+    }
+
+    private static long count(Connection conn, String sql, String schema) throws SQLException {
+        try (PreparedStatement query = conn.prepareStatement(sql)) {
+            query.setString(1, schema);
+            try (ResultSet rs = query.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    private static String projectScoped(String projectPath, String name) {
+        return ":".equals(projectPath) ? name : name + "_" + ContainerSnapshots.sha256(projectPath).substring(0, 8);
+    }
+
+    private static String postgresName(String prefix, String name) {
+        String candidate = prefix + name;
+        if (candidate.length() <= POSTGRES_MAX_IDENTIFIER) {
+            return candidate;
+        }
+        return candidate.substring(0, POSTGRES_MAX_IDENTIFIER - 17) + "_" + ContainerSnapshots.sha256(name).substring(0, 16);
+    }
+
+    private static String quotePostgres(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+
+    private static String quoteMySql(String identifier) {
+        return "`" + identifier.replace("`", "``") + "`";
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.gradle;
+
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.Schema;
+import org.jooq.impl.DSL;
+import org.jooq.meta.jaxb.Configuration;
+import org.jooq.meta.jaxb.Database;
+import org.jooq.meta.jaxb.Property;
+import org.jooq.util.jaxb.tools.MiniJAXB;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * jOOQ {@code InformationSchema} exports of migrated schemas, stored under the state directory by a key
+ * of everything that determines the migrated schema: database type, image, schemas, Flyway options
+ * and the content of every migration file. A generate task whose key has an export configures jOOQ's
+ * {@code XMLDatabase} on it instead of connecting to a database.
+ */
+final class SchemaXmlSnapshots {
+    static final String XML_DATABASE = "org.jooq.meta.xml.XMLDatabase";
+
+    private SchemaXmlSnapshots() {
+    }
+
+    static String key(SupportedDatabase dbType, String image, List<String> schemas, Map<String, String> options,
+                      List<File> migrationDirectories) {
+        StringBuilder material = new StringBuilder()
+            .append(dbType.name()).append('\n')
+            .append(image).append('\n')
+            .append(schemas).append('\n')
+            .append(new TreeMap<>(options)).append('\n');
+        for (File directory : migrationDirectories) {
+            if (!directory.isDirectory()) {
+                continue;
+            }
+            Path root = directory.toPath();
+            try (Stream<Path> files = Files.walk(root)) {
+                for (Path file : files.filter(Files::isRegularFile).sorted().toList()) {
+                    material.append(root.relativize(file)).append('=').append(ContainerSnapshots.sha256(file)).append('\n');
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to fingerprint migrations in " + directory, e);
+            }
+        }
+        return ContainerSnapshots.sha256(material.toString());
+    }
+
+    static File file(File stateDirectory, String key) {
+        return new File(stateDirectory, "xml-schemas/" + key + ".xml");
+    }
+
+    static void export(Connection conn, SupportedDatabase dbType, List<String> schemas, File target) {
+        DSLContext ctx = DSL.using(conn, dialect(dbType));
+        Schema[] selected = ctx.meta()
+            .filterSchemas(schema -> schemas.contains(schema.getName()))
+            .getSchemas()
+            .toArray(Schema[]::new);
+        Path path = target.toPath();
+        try {
+            Files.createDirectories(path.getParent());
+            // write next to the target and move, so concurrent builds never read a partial file
+            Path temp = Files.createTempFile(path.getParent(), target.getName(), ".tmp");
+            try (Writer out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                MiniJAXB.marshal(ctx.informationSchema(selected), out);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write " + target, e);
+        }
+    }
+
+    /**
+     * Points a native jOOQ configuration at an export instead of a JDBC connection.
+     */
+    static void configure(Configuration jooqCfg, SupportedDatabase dbType, File xml) {
+        jooqCfg.setJdbc(null);
+        Database database = jooqCfg.getGenerator().getDatabase();
+        database.setName(XML_DATABASE);
+
+        List<Property> properties = new ArrayList<>();
+        for (Property property : database.getProperties()) {
+            if (!"dialect".equals(property.getKey()) && !"xmlFile".equals(property.getKey())) {
+                properties.add(property);
+            }
+        }
+        properties.add(property("dialect", dialect(dbType).name()));
+        properties.add(property("xmlFile", xml.getAbsolutePath()));
+        database.setProperties(properties);
+    }
+
+    private static Property property(String key, String value) {
+        return new Property().withKey(key).withValue(value);
+    }
+
+    private static SQLDialect dialect(SupportedDatabase dbType) {
+        return switch (dbType) {
+            case POSTGRES -> SQLDialect.POSTGRES;
+            case MYSQL -> SQLDialect.MYSQL;
+            case MARIADB -> SQLDialect.MARIADB;
+        };
+    }
+}
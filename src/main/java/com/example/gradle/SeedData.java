@@ -0,0 +1,220 @@
+package com.example.gradle;
+
+import com.mysql.cj.jdbc.JdbcStatement;
+import org.postgresql.PGConnection;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.UnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Seed data files next to the migrations, {@code S[<order>]__[<schema>.]<table>.csv}, loaded through the
+ * engine's bulk path: {@code COPY ... FROM STDIN} on PostgreSQL, {@code LOAD DATA LOCAL INFILE} on
+ * MySQL/MariaDB. Files are streamed to the driver, never read into memory. The first line names the
+ * columns; empty fields load as NULL. Every load replaces the table's rows, and all files of a
+ * configuration load in one transaction with foreign key checks off, so their order does not matter.
+ */
+final class SeedData {
+    private static final Pattern FILE_NAME = Pattern.compile("^S(\\d*)__(?:([^.]+)\\.)?([^.]+)\\.csv$");
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    record Seed(File file, long order, String schema, String table) {
+    }
+
+    private record Header(List<String> columns, boolean crlf) {
+    }
+
+    private SeedData() {
+    }
+
+    /**
+     * The seed files in {@code directories}, in load order.
+     */
+    static List<Seed> find(List<File> directories) {
+        List<Seed> seeds = new ArrayList<>();
+        for (File directory : directories) {
+            if (!directory.isDirectory()) {
+                continue;
+            }
+            try (Stream<Path> files = Files.walk(directory.toPath())) {
+                for (Path file : files.filter(Files::isRegularFile).toList()) {
+                    Matcher matcher = FILE_NAME.matcher(file.getFileName().toString());
+                    if (matcher.matches()) {
+                        long order = matcher.group(1).isEmpty() ? 0 : Long.parseLong(matcher.group(1));
+                        seeds.add(new Seed(file.toFile(), order, matcher.group(2), matcher.group(3)));
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to list seed data in " + directory, e);
+            }
+        }
+        seeds.sort(Comparator.comparingLong(Seed::order).thenComparing(seed -> seed.file().getName()));
+        return seeds;
+    }
+
+    /**
+     * {@code url} with the driver option that allows {@code LOAD DATA LOCAL INFILE}.
+     */
+    static String jdbcUrl(SupportedDatabase dbType, String url) {
+        String option = switch (dbType) {
+            case POSTGRES -> null;
+            case MYSQL -> "allowLoadLocalInfile=true";
+            case MARIADB -> "allowLocalInfile=true";
+        };
+        return option == null ? url : url + (url.contains("?") ? "&" : "?") + option;
+    }
+
+    /**
+     * Loads {@code seeds} and returns the number of rows loaded. Unqualified tables go to
+     * {@code defaultSchema}, or to the connection's default if that is null; {@code physical} maps
+     * schema names to the ones on the server.
+     */
+    static long load(Connection conn, SupportedDatabase dbType, List<Seed> seeds, String defaultSchema,
+                     UnaryOperator<String> physical) {
+        long rows = 0;
+        Seed current = null;
+        try {
+            conn.setAutoCommit(false);
+            boolean checksOff = disableForeignKeys(conn, dbType);
+            try {
+                for (Seed seed : seeds) {
+                    current = seed;
+                    String schema = seed.schema() != null ? physical.apply(seed.schema()) : defaultSchema;
+                    String table = schema == null ? quote(dbType, seed.table()) : quote(dbType, schema) + "." + quote(dbType, seed.table());
+                    try (InputStream in = new BufferedInputStream(Files.newInputStream(seed.file().toPath()), BUFFER_SIZE)) {
+                        Header header = readHeader(in);
+                        try (Statement stmt = conn.createStatement()) {
+                            stmt.executeUpdate("DELETE FROM " + table);
+                        }
+                        rows += dbType == SupportedDatabase.POSTGRES
+                            ? copy(conn, table, header, in)
+                            : loadData(conn, dbType, table, header, in);
+                    }
+                }
+                current = null;
+                conn.commit();
+            } finally {
+                if (checksOff && dbType != SupportedDatabase.POSTGRES) {
+                    try (Statement stmt = conn.createStatement()) {
+                        stmt.execute("SET FOREIGN_KEY_CHECKS = 1");
+                    }
+                }
+            }
+        } catch (SQLException | IOException e) {
+            throw new RuntimeException("Failed to load seed data" + (current == null ? "" : " " + current.file()), e);
+        }
+        return rows;
+    }
+
+    private static boolean disableForeignKeys(Connection conn, SupportedDatabase dbType) throws SQLException {
+        if (dbType != SupportedDatabase.POSTGRES) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("SET FOREIGN_KEY_CHECKS = 0");
+            }
+            return true;
+        }
+        // skips foreign key triggers until the transaction ends; needs a superuser, which the codegen user is
+        Savepoint savepoint = conn.setSavepoint();
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("SET LOCAL session_replication_role = replica");
+            return true;
+        } catch (SQLException e) {
+            conn.rollback(savepoint);
+            return false;
+        }
+    }
+
+    private static long copy(Connection conn, String table, Header header, InputStream in) throws SQLException, IOException {
+        String columns = header.columns().stream().map(column -> quote(SupportedDatabase.POSTGRES, column)).collect(Collectors.joining(", "));
+        String sql = "COPY " + table + " (" + columns + ") FROM STDIN WITH (FORMAT csv, FORCE_NULL (" + columns + "))";
+        return conn.unwrap(PGConnection.class).getCopyAPI().copyIn(sql, in, BUFFER_SIZE);
+    }
+
+    private static long loadData(Connection conn, SupportedDatabase dbType, String table, Header header, InputStream in)
+        throws SQLException {
+        List<String> variables = new ArrayList<>();
+        List<String> assignments = new ArrayList<>();
+        for (int i = 0; i < header.columns().size(); i++) {
+            variables.add("@c" + i);
+            assignments.add(quote(dbType, header.columns().get(i)) + " = NULLIF(@c" + i + ", '')");
+        }
+        String sql = "LOAD DATA LOCAL INFILE 'seed.csv' INTO TABLE " + table + " CHARACTER SET utf8mb4"
+            + " FIELDS TERMINATED BY ',' OPTIONALLY ENCLOSED BY '\"' ESCAPED BY ''"
+            + " LINES TERMINATED BY '" + (header.crlf() ? "\\r\\n" : "\\n") + "'"
+            + " (" + String.join(", ", variables) + ") SET " + String.join(", ", assignments);
+        try (Statement stmt = conn.createStatement()) {
+            // the driver sends this stream instead of reading the named file
+            if (dbType == SupportedDatabase.MYSQL) {
+                stmt.unwrap(JdbcStatement.class).setLocalInfileInputStream(in);
+            } else {
+                stmt.unwrap(org.mariadb.jdbc.Statement.class).setLocalInfileInputStream(in);
+            }
+            return stmt.executeLargeUpdate(sql);
+        }
+    }
+
+    /**
+     * Reads the first line of {@code in}, leaving the stream at the first row.
+     */
+    private static Header readHeader(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            line.write(b);
+        }
+        String text = line.toString(StandardCharsets.UTF_8);
+        boolean crlf = text.endsWith("\r");
+        if (crlf) {
+            text = text.substring(0, text.length() - 1);
+        }
+        if (text.startsWith("\uFEFF")) {
+            text = text.substring(1);
+        }
+        List<String> columns = new ArrayList<>();
+        StringBuilder column = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' && quoted && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                column.append('"');
+                i++;
+            } else if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                columns.add(column.toString().strip());
+                column.setLength(0);
+            } else {
+                column.append(c);
+            }
+        }
+        columns.add(column.toString().strip());
+        if (columns.stream().anyMatch(String::isEmpty)) {
+            throw new IOException("The first line must name the columns: " + text);
+        }
+        return new Header(columns, crlf);
+    }
+
+    private static String quote(SupportedDatabase dbType, String identifier) {
+        return dbType == SupportedDatabase.POSTGRES
+            ? "\"" + identifier.replace("\"", "\"\"") + "\""
+            : "`" + identifier.replace("`", "``") + "`";
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.gradle;
+
+import org.testcontainers.containers.JdbcDatabaseContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Server arguments, data directory and mounts of the codegen container for a {@link PerformanceProfile}.
+ */
+final class ServerTuning {
+    private static final String TMPFS_DIRECTORY = "/tmpfs-data";
+
+    private static final List<String> POSTGRES_THROUGHPUT = List.of(
+        "fsync=off",
+        "synchronous_commit=off",
+        "full_page_writes=off",
+        "wal_level=minimal",
+        "max_wal_senders=0",
+        "max_wal_size=1GB",
+        "checkpoint_timeout=1h",
+        "autovacuum=off",
+        "shared_buffers=256MB",
+        "work_mem=16MB",
+        "maintenance_work_mem=128MB");
+
+    private static final List<String> MYSQL_THROUGHPUT = List.of(
+        "--innodb-flush-log-at-trx-commit=0",
+        "--innodb-doublewrite=OFF",
+        "--skip-log-bin",
+        "--sync-binlog=0",
+        "--innodb-buffer-pool-size=256M",
+        "--innodb-log-buffer-size=32M",
+        "--performance-schema=OFF");
+
+    private static final List<String> MARIADB_THROUGHPUT = List.of(
+        "--innodb-flush-log-at-trx-commit=0",
+        "--innodb-doublewrite=0",
+        "--skip-log-bin",
+        "--sync-binlog=0",
+        "--innodb-buffer-pool-size=256M",
+        "--innodb-log-buffer-size=32M",
+        "--performance-schema=OFF");
+
+    private ServerTuning() {
+    }
+
+    /**
+     * Server command line arguments of the profile: {@code -c name=value} pairs for PostgreSQL, options for
+     * MySQL/MariaDB.
+     */
+    static List<String> serverArguments(SupportedDatabase dbType, PerformanceProfile profile) {
+        if (profile != PerformanceProfile.THROUGHPUT) {
+            return List.of();
+        }
+        return switch (dbType) {
+            case POSTGRES -> POSTGRES_THROUGHPUT.stream().flatMap(setting -> Stream.of("-c", setting)).toList();
+            case MYSQL -> MYSQL_THROUGHPUT;
+            case MARIADB -> MARIADB_THROUGHPUT;
+        };
+    }
+
+    /**
+     * @param dataDirectory a data directory inside the container filesystem, or null for the image default
+     */
+    static void apply(JdbcDatabaseContainer<?> container, SupportedDatabase dbType, PerformanceProfile profile,
+                      String dataDirectory) {
+        boolean throughput = profile == PerformanceProfile.THROUGHPUT;
+        if (throughput && dataDirectory == null) {
+            // a tmpfs mount is not part of a committed image, so snapshot mode keeps its own data directory
+            container.withTmpFs(Map.of(TMPFS_DIRECTORY, "rw"));
+            dataDirectory = TMPFS_DIRECTORY + "/" + dbType.name().toLowerCase(Locale.ROOT);
+        }
+
+        if (dbType == SupportedDatabase.POSTGRES) {
+            if (dataDirectory != null) {
+                container.withEnv("PGDATA", dataDirectory);
+            }
+            if (throughput) {
+                List<String> command = new ArrayList<>(List.of("postgres"));
+                command.addAll(serverArguments(dbType, profile));
+                container.withCommand(command.toArray(String[]::new));
+                container.withSharedMemorySize(256L * 1024 * 1024);
+            }
+            return;
+        }
+
+        List<String> arguments = new ArrayList<>();
+        if (dataDirectory != null) {
+            arguments.add("--datadir=" + dataDirectory);
+        }
+        if (dbType == SupportedDatabase.MYSQL) {
+            // seed data is loaded with LOAD DATA LOCAL INFILE, which MySQL disables by default
+            arguments.add("--local-infile=1");
+        }
+        arguments.addAll(serverArguments(dbType, profile));
+        if (!arguments.isEmpty()) {
+            container.withCommand(arguments.toArray(String[]::new));
+        }
+    }
+}
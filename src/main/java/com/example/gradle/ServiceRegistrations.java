@@ -0,0 +1,90 @@
+package com.example.gradle;
+
+import org.gradle.api.InvalidUserDataException;
+import org.gradle.api.invocation.Gradle;
+import org.gradle.api.plugins.ExtraPropertiesExtension;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * The projects of a build that share one {@link RdbmsContainerService}. Gradle only lets the first
+ * project to register a shared service configure it, so this collects what every project contributes
+ * (migration directories, schemas to pre-warm) for the service to read, and rejects settings of a later
+ * project that differ from the first one's instead of silently ignoring them.
+ */
+final class ServiceRegistrations {
+    private static final String EXTRA_PROPERTY = "testcontainersJooqServiceRegistrations";
+
+    private final Map<String, Registration> registrations = new HashMap<>();
+
+    static ServiceRegistrations of(Gradle gradle) {
+        ExtraPropertiesExtension extra = gradle.getExtensions().getExtraProperties();
+        synchronized (extra) {
+            if (!extra.has(EXTRA_PROPERTY)) {
+                extra.set(EXTRA_PROPERTY, new ServiceRegistrations());
+            }
+            return (ServiceRegistrations) extra.get(EXTRA_PROPERTY);
+        }
+    }
+
+    /**
+     * Registers the project at {@code projectPath} with the service {@code key}. Fails if the service
+     * already has a project whose {@code settings} differ.
+     */
+    synchronized Registration register(String key, String projectPath, Map<String, Object> settings) {
+        Registration registration = registrations.computeIfAbsent(key, k -> new Registration(projectPath, settings));
+        List<String> differing = new ArrayList<>();
+        settings.forEach((name, value) -> {
+            if (!Objects.equals(value, registration.settings.get(name))) {
+                differing.add(name + " (" + value + " vs " + registration.settings.get(name) + ")");
+            }
+        });
+        if (!differing.isEmpty()) {
+            throw new InvalidUserDataException("Project " + projectPath + " shares the codegen database of project "
+                + registration.projectPath + " (same database type, image, credentials and primary database) but sets "
+                + String.join(", ", differing) + ". Use the same settings in both, or give one of them another "
+                + "primary database.");
+        }
+        return registration;
+    }
+
+    static final class Registration {
+        private final String projectPath;
+        private final Map<String, Object> settings;
+        private final List<Supplier<List<File>>> migrationDirectories = new ArrayList<>();
+        private final List<Supplier<List<String>>> prewarmNames = new ArrayList<>();
+
+        private Registration(String projectPath, Map<String, Object> settings) {
+            this.projectPath = projectPath;
+            this.settings = new LinkedHashMap<>(settings);
+        }
+
+        synchronized void addMigrationDirectories(Supplier<List<File>> directories) {
+            migrationDirectories.add(directories);
+        }
+
+        synchronized void addPrewarmNames(Supplier<List<String>> names) {
+            prewarmNames.add(names);
+        }
+
+        synchronized List<File> migrationDirectories() {
+            LinkedHashSet<File> directories = new LinkedHashSet<>();
+            migrationDirectories.forEach(supplier -> directories.addAll(supplier.get()));
+            return new ArrayList<>(directories);
+        }
+
+        synchronized List<String> prewarmNames() {
+            LinkedHashSet<String> names = new LinkedHashSet<>();
+            prewarmNames.forEach(supplier -> names.addAll(supplier.get()));
+            return new ArrayList<>(names);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.gradle;
+
+import org.gradle.api.model.ObjectFactory;
+import org.gradle.api.provider.Property;
+
+import javax.inject.Inject;
+import java.time.Duration;
+
+public abstract class SnapshotSpec {
+    private final Property<Boolean> enabled;
+    private final Property<Integer> maxSnapshots;
+    private final Property<Duration> maxAge;
+
+    @Inject
+    public SnapshotSpec(ObjectFactory objects) {
+        this.enabled = objects.property(Boolean.class).convention(false);
+        this.maxSnapshots = objects.property(Integer.class).convention(3);
+        this.maxAge = objects.property(Duration.class).convention(Duration.ofDays(14));
+    }
+
+    public Property<Boolean> getEnabled() { return enabled; }
+    public Property<Integer> getMaxSnapshots() { return maxSnapshots; }
+    public Property<Duration> getMaxAge() { return maxAge; }
+}
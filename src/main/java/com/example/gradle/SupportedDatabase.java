@@ -1,20 +1,22 @@
 package com.example.gradle;
 
 public enum SupportedDatabase {
-    MARIADB("org.mariadb.jdbc.Driver", "org.jooq.meta.mariadb.MariaDBDatabase", "mariadb:11.4", "org.mariadb.jdbc:mariadb-java-client:3.5.1"),
-    MYSQL("com.mysql.cj.jdbc.Driver", "org.jooq.meta.mysql.MySQLDatabase", "mysql:8.4", "com.mysql:mysql-connector-j:9.3.0"),
-    POSTGRES("org.postgresql.Driver", "org.jooq.meta.postgres.PostgresDatabase", "postgres:17", "org.postgresql:postgresql:42.7.5");
+    MARIADB("org.mariadb.jdbc.Driver", "org.jooq.meta.mariadb.MariaDBDatabase", "mariadb:11.4", "org.mariadb.jdbc:mariadb-java-client:3.5.1", 3306),
+    MYSQL("com.mysql.cj.jdbc.Driver", "org.jooq.meta.mysql.MySQLDatabase", "mysql:8.4", "com.mysql:mysql-connector-j:9.3.0", 3306),
+    POSTGRES("org.postgresql.Driver", "org.jooq.meta.postgres.PostgresDatabase", "postgres:17", "org.postgresql:postgresql:42.7.5", 5432);
 
     private final String jdbcDriver;
     private final String jooqDatabaseClass;
     private final String defaultImage;
     private final String defaultJdbcDriverDependency;
+    private final int port;
 
-    SupportedDatabase(String jdbcDriver, String jooqDatabaseClass, String defaultImage, String defaultJdbcDriverDependency) {
+    SupportedDatabase(String jdbcDriver, String jooqDatabaseClass, String defaultImage, String defaultJdbcDriverDependency, int port) {
         this.jdbcDriver = jdbcDriver;
         this.jooqDatabaseClass = jooqDatabaseClass;
         this.defaultImage = defaultImage;
         this.defaultJdbcDriverDependency = defaultJdbcDriverDependency;
+        this.port = port;
     }
 
     public String getJdbcDriver() {
@@ -32,4 +34,16 @@ public enum SupportedDatabase {
     public String getDefaultJdbcDriverDependency() {
         return defaultJdbcDriverDependency;
     }
+
+    public int getPort() {
+        return port;
+    }
+
+    public String jdbcUrl(String host, int mappedPort, String database) {
+        return switch (this) {
+            case POSTGRES -> "jdbc:postgresql://" + host + ":" + mappedPort + "/" + database;
+            case MYSQL -> "jdbc:mysql://" + host + ":" + mappedPort + "/" + database + "?useSSL=false&allowPublicKeyRetrieval=true";
+            case MARIADB -> "jdbc:mariadb://" + host + ":" + mappedPort + "/" + database;
+        };
+    }
 }
@@ -1,21 +1,55 @@
 package com.example.gradle;
 
+import org.flywaydb.core.api.configuration.ClassicConfiguration;
+import org.gradle.api.Action;
+import org.gradle.api.Describable;
+import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
 import org.gradle.api.Task;
 import org.gradle.api.artifacts.dsl.DependencyHandler;
-import org.gradle.api.services.BuildServiceRegistration;
+import org.gradle.api.file.Directory;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
 import org.gradle.api.services.BuildServiceRegistry;
+import org.gradle.api.tasks.PathSensitivity;
 import org.gradle.api.tasks.TaskCollection;
-
-import java.lang.reflect.Method;
+import org.gradle.api.tasks.TaskProvider;
+import org.gradle.build.event.BuildEventsListenerRegistry;
+import org.gradle.process.JavaExecSpec;
+import org.jooq.meta.jaxb.Configuration;
+import org.jooq.meta.jaxb.SchemaMappingType;
+
+import javax.inject.Inject;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
 public class TestcontainersFlywayJooqPlugin implements Plugin<Project> {
+    private static final String DEFAULT_CONFIGURATION = "default";
+
+    private final BuildEventsListenerRegistry buildEvents;
+
+    @Inject
+    public TestcontainersFlywayJooqPlugin(BuildEventsListenerRegistry buildEvents) {
+        this.buildEvents = buildEvents;
+    }
 
     @Override
     public void apply(Project project) {
@@ -24,73 +58,203 @@ public class TestcontainersFlywayJooqPlugin implements Plugin<Project> {
 
         TestcontainersJooqExtension extension =
             project.getExtensions().create("testcontainersJooq", TestcontainersJooqExtension.class);
-
-        BuildServiceRegistry services = project.getGradle().getSharedServices();
-        BuildServiceRegistration<RdbmsContainerService, RdbmsContainerService.Params> registration =
-            services.registerIfAbsent("rdbmsCodegenService", RdbmsContainerService.class, spec -> {
-                spec.getParameters().getDatabaseType().set(extension.getDatabaseType());
-                spec.getParameters().getDockerImage().set(extension.getDockerImage());
-                spec.getParameters().getUsername().set(extension.getUsername());
-                spec.getParameters().getPassword().set(extension.getPassword());
-                spec.getParameters().getDatabaseNames().set(extension.getDatabaseNames());
-            });
+        extension.getConfigurations().configureEach(spec -> spec.getFlywayConfiguration().getMigrationLocations()
+            .convention(project.provider(() -> flywayExtensionLocations(project))));
 
         project.afterEvaluate(p -> {
             Object jooqExt = project.getExtensions().findByName("jooq");
             if (jooqExt == null) {
                 return;
             }
+            validateOptions(project, extension, jooqExt);
+            validateBroker(extension);
+            validateBackend(extension);
+
+            Provider<List<String>> schemaNames = project.provider(() -> resolveSchemaNames(extension, jooqExt));
+            // each task only provisions the schemas it reads; pre-warming provisions those of the scheduled tasks
+            Map<String, Provider<List<String>>> schemaNamesByTask = new HashMap<>();
+            List<String> scheduledSchemaNames = new ArrayList<>();
+            Map<String, SchemaConfigurationSpec> templates = migrationTemplates(extension);
+            List<MigrationPlan> migrationPlans = new ArrayList<>();
+            for (SchemaConfigurationSpec spec : extension.getConfigurations()) {
+                List<String> locations = migrationLocations(spec);
+                if (locations.isEmpty()) {
+                    continue;
+                }
+                SchemaConfigurationSpec template = templates.get(spec.getName());
+                migrationPlans.add(new MigrationPlan(spec.getName(), project.provider(() -> taskSchemaNames(extension, spec, null)),
+                    locations, project.provider(() -> MigrationLocations.resolveDirectories(project, locations)),
+                    project.provider(() -> migrationSchemas(spec)), spec.getFlywayConfiguration().getOptions(),
+                    template == null ? null : template.getName(), template == null ? null : migrationSchemas(template).get(0)));
+            }
+            if (extension.getConfigurations().isEmpty()) {
+                // only native jOOQ configurations: migrate what the flyway { } block describes
+                List<String> locations = flywayExtensionLocations(project);
+                migrationPlans.add(new MigrationPlan(DEFAULT_CONFIGURATION, project.provider(() -> {
+                    LinkedHashSet<String> names = new LinkedHashSet<>(taskSchemaNames(extension, null, null));
+                    names.addAll(flywayExtensionSchemas(project));
+                    return new ArrayList<>(names);
+                }), locations, project.provider(() -> MigrationLocations.resolveDirectories(project, locations)),
+                    project.provider(() -> flywayExtensionSchemas(project)), project.provider(Map::of), null, null));
+            }
+            // snapshots are fingerprinted with exactly the directories the migrations run from
+            Provider<RdbmsContainerService> serviceProvider = registerService(project, extension, schemaNames,
+                project.provider(() -> allMigrationDirectories(migrationPlans)), project.provider(() -> scheduledSchemaNames));
+            Map<String, TaskProvider<FlywayMigrateTask>> migrateTasks = new LinkedHashMap<>();
+            migrationPlans.forEach(plan -> migrateTasks.put(plan.name(), registerMigrateTask(project, extension, serviceProvider, plan)));
+            migrateTasks.values().forEach(task -> schemaNamesByTask.put(task.getName(), task.flatMap(FlywayMigrateTask::getDatabaseNames)));
 
             TaskCollection<Task> generateTasks = project.getTasks().matching(task -> {
                 String name = task.getName();
                 return name.toLowerCase(Locale.ROOT).startsWith("generate") && name.endsWith("Jooq");
             });
 
+            // Task actions only capture providers and plain values resolved here, never the project or
+            // the extensions, so they can be stored in the configuration cache.
             generateTasks.configureEach(task -> {
-                task.dependsOn(project.getTasks().named("flywayMigrate"));
-                task.usesService(registration.getService());
+                SchemaConfigurationSpec configSpec = findSchemaSpecForTask(extension, task.getName());
+                List<String> locations = configSpec == null ? List.of() : migrationLocations(configSpec);
+                boolean migratesInTask = !locations.isEmpty();
+                Provider<List<File>> migrationDirectories =
+                    project.provider(() -> MigrationLocations.resolveDirectories(project, locations));
+                String projectPath = project.getPath();
+                String configurationName = configSpec == null ? null : configSpec.getName();
+                SchemaConfigurationSpec template = configSpec == null ? null : templates.get(configSpec.getName());
+                String templateName = template == null ? null : template.getName();
+                String templateSchema = template == null ? null : migrationSchemas(template).get(0);
+                Provider<List<String>> flywayLocations =
+                    migrationDirectories.map(directories -> MigrationLocations.toFlywayLocations(locations, directories));
+                Provider<List<String>> flywaySchemas = project.provider(() -> migrationSchemas(configSpec));
+                Provider<Map<String, String>> flywayOptions = configSpec == null
+                    ? project.provider(Map::of)
+                    : configSpec.getFlywayConfiguration().getOptions();
+                Provider<JooqSettings> jooqSettings = project.provider(() -> jooqSettings(extension, configSpec));
+                // nu.studer's JooqGenerate keeps this object privately and writes it out when it runs
+                Object jooqCfg = findJooqConfigurationForTask(jooqExt, task.getName());
+                Provider<List<String>> databaseNames = project.provider(() -> taskSchemaNames(extension, configSpec, jooqCfg));
+                schemaNamesByTask.put(task.getName(), databaseNames);
+
+                boolean xmlSnapshots = extension.getXmlSchemaSnapshots().get() && migratesInTask && jooqCfg != null;
+                if (migratesInTask) {
+                    if (!xmlSnapshots) {
+                        // with XML snapshots the task migrates itself, and only when it has no snapshot
+                        task.dependsOn(migrateTasks.get(configSpec.getName()));
+                    }
+                    declareCacheInputs(project, task, extension, configSpec, migrationDirectories);
+                    if (MigrationLocations.allResolvable(locations)) {
+                        markAllInputsDeclared(task);
+                    }
+                } else {
+                    // an up-to-date flywayMigrate<Name> task migrates nothing in this build's container, so the
+                    // task still migrates every plan itself in doFirst (a no-op for those that already ran)
+                    task.dependsOn(project.getTasks().named("flywayMigrate"));
+                }
+                task.usesService(serviceProvider);
+                CodegenExecution codegenExecution = extension.getCodegenExecution().get();
+                boolean sharded = jooqCfg != null && jooqSettings.get().sharded();
+                JooqCodegenWorker worker = jooqCfg != null && (codegenExecution != CodegenExecution.JAVAEXEC || sharded)
+                    && replaceGenerateAction(task)
+                    ? project.getObjects().newInstance(JooqCodegenWorker.class)
+                    : null;
+                // shards always run on workers; with JAVAEXEC each in a worker process of its own
+                CodegenExecution workerExecution = codegenExecution == CodegenExecution.JAVAEXEC ? CodegenExecution.PROCESS : codegenExecution;
+                FileCollection generatorClasspath = worker == null ? null : (FileCollection) BeanAccessor.getIfPresent(task, "runtimeClasspath");
+                Provider<Directory> sourcesManifests = project.getLayout().getBuildDirectory()
+                    .dir("testcontainers-jooq/generated/" + task.getName());
+                AtomicLong generateStartNanos = new AtomicLong();
+                AtomicBoolean generatesFromXml = new AtomicBoolean();
                 task.doFirst(t -> {
-                    RdbmsContainerService service = registration.getService().get();
-                    service.ensureDatabases(resolveSchemaNames(extension, jooqExt));
+                    RdbmsContainerService service = serviceProvider.get();
+                    File xmlSnapshot = xmlSnapshots
+                        ? xmlSnapshotFile(service, flywaySchemas.get(), flywayOptions.getOrElse(Map.of()), migrationDirectories.get())
+                        : null;
+                    boolean fromSnapshot = xmlSnapshot != null && xmlSnapshot.isFile();
+                    generatesFromXml.set(fromSnapshot);
+
+                    if (fromSnapshot) {
+                        service.recordPhase("xml.reuse", configurationName, System.currentTimeMillis(), 0, Map.of());
+                    } else {
+                        service.ensureDatabases(databaseNames.get());
+                        if (migratesInTask) {
+                            service.migrate(projectPath, configurationName, flywayLocations.get(), flywaySchemas.get(),
+                                flywayOptions.getOrElse(Map.of()), templateName, templateSchema);
+                        } else {
+                            migrationPlans.forEach(plan -> migrate(service, projectPath, plan));
+                        }
+                        if (xmlSnapshot != null) {
+                            service.exportSchema(projectPath, configurationName, flywaySchemas.get(), xmlSnapshot);
+                        }
+                    }
 
-                    Object jooqCfg = findJooqConfigurationForTask(jooqExt, task.getName());
                     if (jooqCfg != null) {
-                        SchemaConfigurationSpec configSpec = findSchemaSpecForTask(extension, task.getName());
-                        configureJooq(jooqCfg, service, extension, configSpec);
+                        configureJooq(jooqCfg, service, jooqSettings.get(), projectPath, configurationName, fromSnapshot ? xmlSnapshot : null);
+                        outputDirectories(t).forEach(directory ->
+                            GeneratedSources.setAside(directory, previousOutput(t, directory)));
+                    }
+                    generateStartNanos.set(System.nanoTime());
+                });
+                if (worker != null) {
+                    task.doLast(t -> {
+                        // what nu.studer's action does before its javaexec
+                        File directory = outputDirectories(t).get(0);
+                        BeanAccessor.set(BeanAccessor.get(BeanAccessor.get(jooqCfg, "generator"), "target"), "directory",
+                            directory.getAbsolutePath());
+                        @SuppressWarnings("unchecked")
+                        Action<? super JavaExecSpec> javaExecSpec = (Action<? super JavaExecSpec>) BeanAccessor.getIfPresent(t, "javaExecSpec");
+                        if (sharded && !generatesFromXml.get()) {
+                            generateShards(worker, workerExecution, generatorClasspath, javaExecSpec, jooqCfg, serviceProvider.get(),
+                                projectPath, configurationName, jooqSettings.get(), directory, t.getTemporaryDir());
+                        } else {
+                            worker.generate(workerExecution, generatorClasspath, javaExecSpec, jooqCfg,
+                                new File(t.getTemporaryDir(), "config.xml"));
+                        }
+                    });
+                }
+                task.doLast(t -> {
+                    long millis = (System.nanoTime() - generateStartNanos.get()) / 1_000_000;
+                    RdbmsContainerService service = serviceProvider.get();
+                    service.recordPhase("jooq.generate", t.getPath(), System.currentTimeMillis() - millis, millis,
+                        Map.of("filesGenerated", countFiles(t.getOutputs().getFiles().getFiles())));
+                    if (jooqCfg != null) {
+                        // nu.studer regenerates the whole directory; put back what did not change
+                        for (File directory : outputDirectories(t)) {
+                            long startMillis = System.currentTimeMillis();
+                            long startNanos = System.nanoTime();
+                            Map<String, Long> counters = GeneratedSources.restoreUnchanged(directory,
+                                previousOutput(t, directory), GeneratedSources.manifest(sourcesManifests.get().getAsFile(), directory));
+                            service.recordPhase("jooq.sync", t.getPath(), startMillis, (System.nanoTime() - startNanos) / 1_000_000,
+                                counters);
+                        }
                     }
                 });
             });
 
+            // flywayMigrate only aggregates the per-configuration tasks, which run Flyway in-process
+            // through the service; the Flyway plugin's own action never runs.
             Task flywayTask = project.getTasks().named("flywayMigrate").get();
-            flywayTask.usesService(registration.getService());
-            flywayTask.doFirst(t -> {
-                RdbmsContainerService service = registration.getService().get();
-                service.ensureDatabases(resolveSchemaNames(extension, jooqExt));
-
-                Object flywayExt = project.getExtensions().getByName("flyway");
-                invokeSet(flywayExt, "setUrl", service.getJdbcUrl());
-                invokeSet(flywayExt, "setUser", service.getUsername());
-                invokeSet(flywayExt, "setPassword", service.getPassword());
-
-                List<SchemaConfigurationSpec> selected = selectSchemaConfigsForInvocation(project, extension);
-                LinkedHashSet<String> locations = new LinkedHashSet<>();
-                LinkedHashSet<String> schemas = new LinkedHashSet<>();
-                for (SchemaConfigurationSpec spec : selected) {
-                    FlywayConfigurationSpec flywaySpec = spec.getFlywayConfiguration();
-                    locations.addAll(normalize(flywaySpec.getMigrationLocations().getOrElse(List.of())));
-                    String schema = effectiveInputSchema(spec);
-                    if (!isBlank(schema)) {
-                        schemas.add(schema.trim());
+            flywayTask.dependsOn(migrateTasks.values());
+            flywayTask.onlyIf("migrations run through the flywayMigrate<Name> tasks", t -> false);
+
+            if (extension.getPrewarm().get()) {
+                project.getGradle().getTaskGraph().whenReady(graph -> {
+                    LinkedHashSet<String> names = new LinkedHashSet<>();
+                    boolean scheduled = false;
+                    for (Task task : graph.getAllTasks()) {
+                        if (task.getProject() == project
+                            && (generateTasks.contains(task) || task == flywayTask || task instanceof FlywayMigrateTask)) {
+                            scheduled = true;
+                            Provider<List<String>> taskNames = schemaNamesByTask.get(task.getName());
+                            if (taskNames != null) {
+                                names.addAll(taskNames.get());
+                            }
+                        }
                     }
-                    applySetterMap(flywayExt, flywaySpec.getOptions().getOrElse(Map.of()));
-                }
-                if (!locations.isEmpty()) {
-                    invokeSet(flywayExt, "setLocations", new ArrayList<>(locations));
-                }
-                if (!schemas.isEmpty()) {
-                    invokeSet(flywayExt, "setSchemas", new ArrayList<>(schemas));
-                }
-            });
+                    scheduledSchemaNames.addAll(names);
+                    if (scheduled) {
+                        buildEvents.onTaskCompletion(serviceProvider);
+                    }
+                });
+            }
 
             SupportedDatabase dbType = extension.getDatabaseType().get();
             String driverDep = extension.getJdbcDriverDependency().getOrElse(dbType.getDefaultJdbcDriverDependency());
@@ -99,80 +263,422 @@ public class TestcontainersFlywayJooqPlugin implements Plugin<Project> {
         });
     }
 
-    private static void configureJooq(Object jooqCfg, RdbmsContainerService service,
-                                      TestcontainersJooqExtension extension, SchemaConfigurationSpec spec) {
-        Object jdbc = invoke(jooqCfg, "getJdbc");
-        invokeSet(jdbc, "setUrl", service.getJdbcUrl());
-        invokeSet(jdbc, "setUser", service.getUsername());
-        invokeSet(jdbc, "setPassword", service.getPassword());
-        invokeSet(jdbc, "setDriver", service.getJdbcDriver());
+    /**
+     * What a {@code flywayMigrate<Name>} task migrates. Generate tasks of native jOOQ configurations
+     * migrate the same plans in-task, since an up-to-date migrate task leaves the container unmigrated.
+     */
+    private record MigrationPlan(String name, Provider<List<String>> databaseNames, List<String> locations,
+                                 Provider<List<File>> directories, Provider<List<String>> schemas,
+                                 Provider<Map<String, String>> options, String templateName, String templateSchema) {
+    }
 
-        Object generator = invoke(jooqCfg, "getGenerator");
-        Object database = invoke(generator, "getDatabase");
+    private static void migrate(RdbmsContainerService service, String projectPath, MigrationPlan plan) {
+        service.ensureDatabases(plan.databaseNames().get());
+        service.migrate(projectPath, plan.name(), MigrationLocations.toFlywayLocations(plan.locations(), plan.directories().get()),
+            plan.schemas().get(), plan.options().getOrElse(Map.of()), plan.templateName(), plan.templateSchema());
+    }
+
+    private static TaskProvider<FlywayMigrateTask> registerMigrateTask(Project project, TestcontainersJooqExtension extension,
+                                                                       Provider<RdbmsContainerService> serviceProvider,
+                                                                       MigrationPlan plan) {
+        String name = plan.name();
+        List<String> locations = plan.locations();
+        return project.getTasks().register(migrateTaskNameForConfig(name), FlywayMigrateTask.class, task -> {
+            task.setGroup("flyway");
+            task.setDescription("Migrates the '" + name + "' schema configuration into the codegen database.");
+            task.usesService(serviceProvider);
+            task.getService().set(serviceProvider);
+            task.getProjectPath().set(project.getPath());
+            task.getConfigurationName().set(name);
+            task.getLocations().set(locations);
+            task.getMigrationDirectories().from(plan.directories());
+            task.getSchemas().set(plan.schemas());
+            task.getOptions().set(plan.options());
+            task.getTemplateName().set(plan.templateName());
+            task.getTemplateSchema().set(plan.templateSchema());
+            task.getDatabaseType().set(extension.getDatabaseType());
+            task.getDockerImage().set(dockerImage(extension));
+            task.getDatabaseNames().set(plan.databaseNames());
+            task.getReportFile().set(project.getLayout().getBuildDirectory()
+                .file("testcontainers-jooq/flyway/" + name + ".properties"));
+            boolean resolvable = MigrationLocations.allResolvable(locations);
+            task.getOutputs().cacheIf("all migration locations are local", t -> resolvable);
+            task.getOutputs().upToDateWhen(t -> resolvable);
+        });
+    }
 
-        if (isBlank(getString(invoke(database, "getName")))) {
-            invokeSet(database, "setName", service.getJooqDatabaseClass());
+    /**
+     * The locations of the {@code flyway { }} block, or Flyway's default. Configurations without
+     * {@code migrationLocations} of their own use these.
+     */
+    private static List<String> flywayExtensionLocations(Project project) {
+        Object locations = BeanAccessor.getIfPresent(project.getExtensions().findByName("flyway"), "locations");
+        if (locations instanceof String[] values && values.length > 0) {
+            return normalize(List.of(values));
         }
+        return List.of("classpath:db/migration");
+    }
 
-        JooqGeneratorSpec jooqSpec = spec == null ? null : spec.getJooqGenerator();
-        String configuredInputSchema = getString(invoke(database, "getInputSchema"));
-        Object inputSchemata = invoke(database, "getInputSchemata");
-        boolean hasInputSchemata = inputSchemata instanceof List<?> list && !list.isEmpty();
-        if (isBlank(configuredInputSchema) && !hasInputSchemata) {
-            String preferred = effectiveInputSchema(spec);
-            if (isBlank(preferred)) {
-                List<String> defaults = normalize(extension.getDatabaseNames().getOrElse(List.of()));
-                preferred = defaults.isEmpty() ? null : defaults.get(0);
-            }
-            if (!isBlank(preferred)) {
-                invokeSet(database, "setInputSchema", preferred);
-            }
+    private static List<String> flywayExtensionSchemas(Project project) {
+        Object schemas = BeanAccessor.getIfPresent(project.getExtensions().findByName("flyway"), "schemas");
+        return schemas instanceof String[] values ? normalize(List.of(values)) : List.of();
+    }
+
+    private static void declareCacheInputs(Project project, Task task, TestcontainersJooqExtension extension,
+                                           SchemaConfigurationSpec spec, Provider<List<File>> migrationDirectories) {
+        String prefix = "testcontainersJooq.";
+        task.getInputs().files(migrationDirectories)
+            .withPropertyName(prefix + "migrations")
+            .withPathSensitivity(PathSensitivity.RELATIVE)
+            .ignoreEmptyDirectories();
+        task.getInputs().property(prefix + "databaseType", extension.getDatabaseType());
+        task.getInputs().property(prefix + "dockerImage", dockerImage(extension));
+        task.getInputs().property(prefix + "databaseNames", extension.getDatabaseNames());
+        task.getInputs().property(prefix + "inputSchema", spec.getInputSchema()).optional(true);
+        task.getInputs().property(prefix + "flywayOptions", spec.getFlywayConfiguration().getOptions());
+        task.getInputs().property(prefix + "xmlSchemaSnapshots", extension.getXmlSchemaSnapshots());
+
+        JooqGeneratorSpec jooqSpec = spec.getJooqGenerator();
+        task.getInputs().property(prefix + "jooq.inputSchema", jooqSpec.getInputSchema()).optional(true);
+        task.getInputs().property(prefix + "jooq.inputSchemata", jooqSpec.getInputSchemata());
+        task.getInputs().property(prefix + "jooq.includes", jooqSpec.getIncludes()).optional(true);
+        task.getInputs().property(prefix + "jooq.excludes", jooqSpec.getExcludes()).optional(true);
+        task.getInputs().property(prefix + "jooq.targetPackage", jooqSpec.getTargetPackage()).optional(true);
+        task.getInputs().property(prefix + "jooq.databaseOptions", jooqSpec.getDatabaseOptions());
+        task.getInputs().property(prefix + "jooq.generatorOptions", jooqSpec.getGeneratorOptions());
+        task.getInputs().property(prefix + "jooq.targetOptions", jooqSpec.getTargetOptions());
+        if (jooqSpec.getTargetDirectory().isPresent()) {
+            task.getOutputs().dir(jooqSpec.getTargetDirectory().map(project::file))
+                .withPropertyName(prefix + "jooq.targetDirectory");
         }
+    }
 
-        if (jooqSpec != null) {
-            String overrideInputSchema = jooqSpec.getInputSchema().getOrNull();
-            if (!isBlank(overrideInputSchema)) {
-                invokeSet(database, "setInputSchema", overrideInputSchema);
-            }
-            List<String> overrideSchemata = normalize(jooqSpec.getInputSchemata().getOrElse(List.of()));
-            if (!overrideSchemata.isEmpty()) {
-                invokeSet(database, "setInputSchemata", overrideSchemata);
-            }
-            if (!isBlank(jooqSpec.getIncludes().getOrNull())) {
-                invokeSet(database, "setIncludes", jooqSpec.getIncludes().get());
-            }
-            if (!isBlank(jooqSpec.getExcludes().getOrNull())) {
-                invokeSet(database, "setExcludes", jooqSpec.getExcludes().get());
+    @SuppressWarnings("unchecked")
+    private static void markAllInputsDeclared(Task task) {
+        if (BeanAccessor.getIfPresent(task, "allInputsDeclared") instanceof Property<?> property) {
+            ((Property<Boolean>) property).set(Boolean.TRUE);
+        }
+    }
+
+    private static JooqSettings jooqSettings(TestcontainersJooqExtension extension, SchemaConfigurationSpec spec) {
+        String preferred = effectiveInputSchema(spec);
+        if (isBlank(preferred)) {
+            List<String> defaults = normalize(extension.getDatabaseNames().getOrElse(List.of()));
+            preferred = defaults.isEmpty() ? null : defaults.get(0);
+        }
+        return spec == null ? JooqSettings.defaults(preferred) : JooqSettings.of(preferred, spec.getJooqGenerator());
+    }
+
+    private static File xmlSnapshotFile(RdbmsContainerService service, List<String> schemas, Map<String, String> options,
+                                        List<File> migrationDirectories) {
+        if (schemas.isEmpty()) {
+            return null;
+        }
+        RdbmsContainerService.Params params = service.getParameters();
+        SupportedDatabase dbType = params.getDatabaseType().get();
+        String key = SchemaXmlSnapshots.key(dbType, params.getDockerImage().getOrElse(dbType.getDefaultImage()), schemas, options,
+            migrationDirectories);
+        return SchemaXmlSnapshots.file(params.getStateDirectory().get().getAsFile(), key);
+    }
+
+    /**
+     * Removes nu.studer's {@code @TaskAction}, leaving the actions added in build scripts in place. Returns
+     * false if the action is not found, in which case nu.studer keeps generating.
+     */
+    private static boolean replaceGenerateAction(Task task) {
+        boolean removed = task.getActions()
+            .removeIf(action -> action instanceof Describable d && d.getDisplayName().equals("Execute generate"));
+        if (!removed) {
+            task.getLogger().warn("{}: no nu.studer generate action found; codegenExecution and shards are ignored", task.getPath());
+        }
+        return removed;
+    }
+
+    /**
+     * Generates a single-schema configuration in the shards {@link JooqShards} plans for it, concurrently,
+     * and merges them into {@code outputDirectory}.
+     */
+    private static void generateShards(JooqCodegenWorker worker, CodegenExecution execution, FileCollection classpath,
+                                       Action<? super JavaExecSpec> javaExecSpec, Object jooqCfg, RdbmsContainerService service, String projectPath,
+                                       String configurationName, JooqSettings settings, File outputDirectory, File temporaryDir) {
+        Object database = nativeDatabase(jooqCfg);
+        Object target = BeanAccessor.get(BeanAccessor.get(jooqCfg, "generator"), "target");
+        String schema = getString(BeanAccessor.get(database, "inputSchema"));
+        boolean hasInputSchemata = BeanAccessor.get(database, "inputSchemata") instanceof List<?> list && !list.isEmpty();
+        File configurationFile = new File(temporaryDir, "config.xml");
+        if (isBlank(schema) || hasInputSchemata) {
+            Logging.getLogger(TestcontainersFlywayJooqPlugin.class)
+                .warn("Configuration '{}' reads several schemas; generating it without shards", configurationName);
+            worker.generate(execution, classpath, javaExecSpec, jooqCfg, configurationFile);
+            return;
+        }
+        String includes = getString(BeanAccessor.get(database, "includes"));
+        String excludes = getString(BeanAccessor.get(database, "excludes"));
+        List<List<String>> plan = service.planShards(projectPath, configurationName, schema.trim(), settings.shards(),
+            settings.shardPatterns(), includes, excludes);
+        if (plan.size() < 2) {
+            worker.generate(execution, classpath, javaExecSpec, jooqCfg, configurationFile);
+            return;
+        }
+
+        String directory = getString(BeanAccessor.get(target, "directory"));
+        List<File> configurationFiles = new ArrayList<>();
+        List<File> shardDirectories = new ArrayList<>();
+        try {
+            for (int i = 0; i < plan.size(); i++) {
+                String[] filters = JooqShards.filters(plan, i, includes, excludes);
+                File shardDirectory = new File(temporaryDir, "shards/" + i);
+                BeanAccessor.set(database, "includes", filters[0]);
+                BeanAccessor.set(database, "excludes", filters[1]);
+                BeanAccessor.set(target, "directory", shardDirectory.getAbsolutePath());
+                File shardConfiguration = new File(temporaryDir, "config-shard-" + i + ".xml");
+                JooqCodegenWorker.write(jooqCfg, shardConfiguration);
+                configurationFiles.add(shardConfiguration);
+                shardDirectories.add(shardDirectory);
             }
+        } finally {
+            BeanAccessor.set(database, "includes", includes);
+            BeanAccessor.set(database, "excludes", excludes);
+            BeanAccessor.set(target, "directory", directory);
+        }
+        worker.generate(execution, classpath, javaExecSpec, configurationFiles);
+
+        long startMillis = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        long merged = JooqShards.merge(shardDirectories, outputDirectory);
+        service.recordPhase("jooq.shardMerge", configurationName, startMillis, (System.nanoTime() - startNanos) / 1_000_000,
+            Map.of("filesMerged", merged));
+    }
 
-            applySetterMap(database, jooqSpec.getDatabaseOptions().getOrElse(Map.of()));
-            applySetterMap(generator, jooqSpec.getGeneratorOptions().getOrElse(Map.of()));
+    private static List<File> outputDirectories(Task task) {
+        return task.getOutputs().getFiles().getFiles().stream().filter(file -> !file.isFile()).toList();
+    }
+
+    private static File previousOutput(Task task, File outputDirectory) {
+        return new File(task.getTemporaryDir(), "previous-" + GeneratedSources.key(outputDirectory));
+    }
+
+    private static void configureJooq(Object jooqCfg, RdbmsContainerService service, JooqSettings settings,
+                                      String projectPath, String configurationName, File xmlSnapshot) {
+        if (xmlSnapshot == null) {
+            Object jdbc = BeanAccessor.getOrCreate(jooqCfg, "jdbc");
+            BeanAccessor.set(jdbc, "url", service.getJdbcUrl(projectPath, configurationName));
+            BeanAccessor.set(jdbc, "user", service.getUsername());
+            BeanAccessor.set(jdbc, "password", service.getPassword());
+            BeanAccessor.set(jdbc, "driver", service.getJdbcDriver());
+        }
+
+        Object generator = BeanAccessor.getOrCreate(jooqCfg, "generator");
+        Object database = BeanAccessor.getOrCreate(generator, "database");
+
+        if (xmlSnapshot != null) {
+            SchemaXmlSnapshots.configure((Configuration) jooqCfg, service.getParameters().getDatabaseType().get(), xmlSnapshot);
+        } else if (isBlank(getString(BeanAccessor.get(database, "name")))) {
+            BeanAccessor.set(database, "name", service.getJooqDatabaseClass());
+        }
+
+        String configuredInputSchema = getString(BeanAccessor.get(database, "inputSchema"));
+        Object inputSchemata = BeanAccessor.get(database, "inputSchemata");
+        boolean hasInputSchemata = inputSchemata instanceof List<?> list && !list.isEmpty();
+        if (isBlank(configuredInputSchema) && !hasInputSchemata && !isBlank(settings.defaultInputSchema())) {
+            BeanAccessor.set(database, "inputSchema", settings.defaultInputSchema());
+        }
 
-            Object target = invoke(generator, "getTarget");
-            if (!isBlank(jooqSpec.getTargetPackage().getOrNull())) {
-                invokeSet(target, "setPackageName", jooqSpec.getTargetPackage().get());
+        if (!isBlank(settings.inputSchema())) {
+            BeanAccessor.set(database, "inputSchema", settings.inputSchema());
+        }
+        List<String> overrideSchemata = normalize(settings.inputSchemata());
+        if (!overrideSchemata.isEmpty()) {
+            BeanAccessor.set(database, "inputSchemata", schemaMappings(overrideSchemata));
+        }
+        if (!isBlank(settings.includes())) {
+            BeanAccessor.set(database, "includes", settings.includes());
+        }
+        if (!isBlank(settings.excludes())) {
+            BeanAccessor.set(database, "excludes", settings.excludes());
+        }
+
+        applyOptions(database, settings.databaseOptions());
+        applyGeneratorOptions(generator, settings.generatorOptions());
+
+        Object target = BeanAccessor.getOrCreate(generator, "target");
+        if (!isBlank(settings.targetPackage())) {
+            BeanAccessor.set(target, "packageName", settings.targetPackage());
+        }
+        if (!isBlank(settings.targetDirectory())) {
+            BeanAccessor.set(target, "directory", settings.targetDirectory());
+        }
+        applyOptions(target, settings.targetOptions());
+
+        if (xmlSnapshot == null) {
+            mapToPhysicalSchemas(database, service);
+        }
+    }
+
+    /**
+     * With the broker on MySQL/MariaDB the schemas live under namespaced names; jOOQ reads those and
+     * generates code for the configured names.
+     */
+    private static void mapToPhysicalSchemas(Object database, RdbmsContainerService service) {
+        List<Object> mappings = new ArrayList<>(List.of(database));
+        if (BeanAccessor.get(database, "inputSchemata") instanceof List<?> list) {
+            mappings.addAll(list);
+        }
+        for (Object mapping : mappings) {
+            String schema = getString(BeanAccessor.get(mapping, "inputSchema"));
+            if (isBlank(schema) || service.getPhysicalSchema(schema.trim()).equals(schema.trim())) {
+                continue;
             }
-            if (!isBlank(jooqSpec.getTargetDirectory().getOrNull())) {
-                invokeSet(target, "setDirectory", jooqSpec.getTargetDirectory().get());
+            BeanAccessor.set(mapping, "inputSchema", service.getPhysicalSchema(schema.trim()));
+            if (isBlank(getString(BeanAccessor.get(mapping, "outputSchema")))) {
+                BeanAccessor.set(mapping, "outputSchema", schema.trim());
             }
-            applySetterMap(target, jooqSpec.getTargetOptions().getOrElse(Map.of()));
         }
     }
 
-    private static List<SchemaConfigurationSpec> selectSchemaConfigsForInvocation(Project project, TestcontainersJooqExtension extension) {
-        List<String> requested = project.getGradle().getStartParameter().getTaskNames();
-        if (requested == null || requested.isEmpty()) {
-            return new ArrayList<>(extension.getConfigurations());
+    /**
+     * Registers (or looks up) the service for this project's database type, image, credentials and primary
+     * database, so projects on different engines or databases each get their own container and parallelism
+     * limit while projects with the same settings share one. Migration directories and pre-warmed schemas
+     * are the union over the sharing projects; their other settings have to agree, see
+     * {@link ServiceRegistrations}.
+     */
+    private static Provider<RdbmsContainerService> registerService(Project project, TestcontainersJooqExtension extension,
+                                                                   Provider<List<String>> schemaNames,
+                                                                   Provider<List<File>> migrationDirectories,
+                                                                   Provider<List<String>> prewarmNames) {
+        SupportedDatabase dbType = extension.getDatabaseType().get();
+        // the same primary database whichever task provisions first, so snapshots and reuse keys are stable
+        String primaryName = schemaNames.get().get(0);
+        String key = dbType.name().toLowerCase(Locale.ROOT) + "-" + ContainerSnapshots.sha256(String.join("\n",
+            dockerImage(extension).get(), extension.getUsername().get(), extension.getPassword().get(), primaryName))
+            .substring(0, 12);
+        ServiceRegistrations.Registration registration = ServiceRegistrations.of(project.getGradle())
+            .register(key, project.getPath(), serviceSettings(extension));
+        registration.addMigrationDirectories(migrationDirectories::get);
+        registration.addPrewarmNames(prewarmNames::get);
+        BuildServiceRegistry services = project.getGradle().getSharedServices();
+        return services.registerIfAbsent("rdbmsCodegenService-" + key, RdbmsContainerService.class, spec -> {
+            spec.getMaxParallelUsages().set(extension.getCodegenParallelism());
+            spec.getParameters().getDatabaseType().set(extension.getDatabaseType());
+            spec.getParameters().getDockerImage().set(extension.getDockerImage());
+            spec.getParameters().getUsername().set(extension.getUsername());
+            spec.getParameters().getPassword().set(extension.getPassword());
+            spec.getParameters().getDatabaseNames().set(extension.getDatabaseNames());
+            spec.getParameters().getPrimaryDatabaseName().set(primaryName);
+            spec.getParameters().getSnapshotsEnabled().set(extension.getSnapshots().getEnabled());
+            spec.getParameters().getMaxSnapshots().set(extension.getSnapshots().getMaxSnapshots());
+            spec.getParameters().getMaxSnapshotAge().set(extension.getSnapshots().getMaxAge());
+            spec.getParameters().getMigrationDirectories().from(project.provider(registration::migrationDirectories));
+            spec.getParameters().getRootDirectory().set(project.getRootProject().getLayout().getProjectDirectory());
+            spec.getParameters().getReuseEnabled().set(extension.getReuse().getEnabled());
+            spec.getParameters().getReuseIdleTimeout().set(extension.getReuse().getIdleTimeout());
+            spec.getParameters().getStateDirectory().set(new File(project.getGradle().getGradleUserHomeDir(), "testcontainers-jooq"));
+            spec.getParameters().getContinuousBuild().set(project.getGradle().getStartParameter().isContinuous());
+            spec.getParameters().getContinuousIdleTimeout().set(extension.getContinuousIdleTimeout());
+            spec.getParameters().getTimingsReport().set(project.getRootProject().getLayout().getBuildDirectory()
+                .file("reports/testcontainers-jooq/codegen-timings-" + key + ".json"));
+            spec.getParameters().getTimingsSummary().set(extension.getTimingsSummary());
+            spec.getParameters().getPrewarm().set(extension.getPrewarm());
+            spec.getParameters().getPerformanceProfile().set(extension.getPerformanceProfile());
+            spec.getParameters().getBackend().set(extension.getBackend());
+            spec.getParameters().getEmbeddedInstallDirectory().set(extension.getEmbedded().getInstallDirectory());
+            spec.getParameters().getPrewarmDatabaseNames().set(project.provider(registration::prewarmNames));
+            spec.getParameters().getReadinessStrategy().set(extension.getReadiness().getStrategy());
+            spec.getParameters().getReadinessInitialBackoff().set(extension.getReadiness().getInitialBackoff());
+            spec.getParameters().getReadinessMaxBackoff().set(extension.getReadiness().getMaxBackoff());
+            spec.getParameters().getReadinessTimeout().set(extension.getReadiness().getTimeout());
+            spec.getParameters().getBrokerEnabled().set(extension.getBroker().getEnabled());
+            spec.getParameters().getBrokerMaxConcurrentMigrations().set(extension.getBroker().getMaxConcurrentMigrations());
+            spec.getParameters().getBrokerIdleTimeout().set(extension.getBroker().getIdleTimeout());
+            spec.getParameters().getMigrationProfileEnabled().set(extension.getMigrationProfile().getEnabled());
+            spec.getParameters().getMigrationProfileStatements().set(extension.getMigrationProfile().getStatements());
+            spec.getParameters().getMigrationProfileWarnAfter().set(extension.getMigrationProfile().getWarnAfter());
+            spec.getParameters().getMigrationProfileFailAfter().set(extension.getMigrationProfile().getFailAfter());
+            spec.getParameters().getMigrationProfileReport().set(project.getRootProject().getLayout().getBuildDirectory()
+                .file("reports/testcontainers-jooq/migration-profile-" + key + ".json"));
+        });
+    }
+
+    /**
+     * The settings that change how a shared service behaves, by their DSL name.
+     */
+    private static Map<String, Object> serviceSettings(TestcontainersJooqExtension extension) {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("codegenParallelism", extension.getCodegenParallelism().getOrNull());
+        settings.put("backend", extension.getBackend().getOrNull());
+        settings.put("embedded.installDirectory", extension.getEmbedded().getInstallDirectory().getAsFile().getOrNull());
+        settings.put("snapshots.enabled", extension.getSnapshots().getEnabled().getOrNull());
+        settings.put("snapshots.maxSnapshots", extension.getSnapshots().getMaxSnapshots().getOrNull());
+        settings.put("snapshots.maxAge", extension.getSnapshots().getMaxAge().getOrNull());
+        settings.put("reuse.enabled", extension.getReuse().getEnabled().getOrNull());
+        settings.put("reuse.idleTimeout", extension.getReuse().getIdleTimeout().getOrNull());
+        settings.put("continuousIdleTimeout", extension.getContinuousIdleTimeout().getOrNull());
+        settings.put("prewarm", extension.getPrewarm().getOrNull());
+        settings.put("performanceProfile", extension.getPerformanceProfile().getOrNull());
+        settings.put("timingsSummary", extension.getTimingsSummary().getOrNull());
+        settings.put("readiness.strategy", extension.getReadiness().getStrategy().getOrNull());
+        settings.put("readiness.initialBackoff", extension.getReadiness().getInitialBackoff().getOrNull());
+        settings.put("readiness.maxBackoff", extension.getReadiness().getMaxBackoff().getOrNull());
+        settings.put("readiness.timeout", extension.getReadiness().getTimeout().getOrNull());
+        settings.put("broker.enabled", extension.getBroker().getEnabled().getOrNull());
+        settings.put("broker.maxConcurrentMigrations", extension.getBroker().getMaxConcurrentMigrations().getOrNull());
+        settings.put("broker.idleTimeout", extension.getBroker().getIdleTimeout().getOrNull());
+        settings.put("migrationProfile.enabled", extension.getMigrationProfile().getEnabled().getOrNull());
+        settings.put("migrationProfile.statements", extension.getMigrationProfile().getStatements().getOrNull());
+        settings.put("migrationProfile.warnAfter", extension.getMigrationProfile().getWarnAfter().getOrNull());
+        settings.put("migrationProfile.failAfter", extension.getMigrationProfile().getFailAfter().getOrNull());
+        return settings;
+    }
+
+    private static Provider<String> dockerImage(TestcontainersJooqExtension extension) {
+        return extension.getDockerImage().orElse(extension.getDatabaseType().map(SupportedDatabase::getDefaultImage));
+    }
+
+    private static List<String> migrationLocations(SchemaConfigurationSpec spec) {
+        return normalize(spec.getFlywayConfiguration().getMigrationLocations().getOrElse(List.of()));
+    }
+
+    private static List<String> migrationSchemas(SchemaConfigurationSpec spec) {
+        if (spec == null) {
+            return List.of();
+        }
+        String schema = effectiveInputSchema(spec);
+        return isBlank(schema) ? List.of() : List.of(schema.trim());
+    }
+
+    /**
+     * Maps each configuration to the first configuration with the same migration locations and Flyway
+     * options, for groups of at least two single-schema configurations.
+     */
+    private static Map<String, SchemaConfigurationSpec> migrationTemplates(TestcontainersJooqExtension extension) {
+        Map<String, SchemaConfigurationSpec> templates = new HashMap<>();
+        if (!extension.getTemplateMigrations().get()) {
+            return templates;
         }
-        LinkedHashSet<SchemaConfigurationSpec> selected = new LinkedHashSet<>();
-        for (String req : requested) {
-            String plain = req.contains(":") ? req.substring(req.lastIndexOf(':') + 1) : req;
-            SchemaConfigurationSpec byTask = findSchemaSpecForTask(extension, plain);
-            if (byTask != null) {
-                selected.add(byTask);
+        Map<String, List<SchemaConfigurationSpec>> groups = new LinkedHashMap<>();
+        for (SchemaConfigurationSpec spec : extension.getConfigurations()) {
+            List<String> locations = migrationLocations(spec);
+            if (locations.isEmpty() || migrationSchemas(spec).size() != 1) {
+                continue;
             }
+            String key = locations + " " + new TreeMap<>(spec.getFlywayConfiguration().getOptions().getOrElse(Map.of()));
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(spec);
+        }
+        for (List<SchemaConfigurationSpec> group : groups.values()) {
+            if (group.size() > 1) {
+                group.forEach(spec -> templates.put(spec.getName(), group.get(0)));
+            }
+        }
+        return templates;
+    }
+
+    private static List<File> allMigrationDirectories(List<MigrationPlan> plans) {
+        List<File> directories = new ArrayList<>();
+        for (MigrationPlan plan : plans) {
+            directories.addAll(plan.directories().get());
         }
-        return selected.isEmpty() ? new ArrayList<>(extension.getConfigurations()) : new ArrayList<>(selected);
+        return directories;
     }
 
     private static SchemaConfigurationSpec findSchemaSpecForTask(TestcontainersJooqExtension extension, String taskName) {
@@ -184,37 +690,18 @@ public class TestcontainersFlywayJooqPlugin implements Plugin<Project> {
         return null;
     }
 
+    /**
+     * Every schema of the project: the primary database is the first of these.
+     */
     private static List<String> resolveSchemaNames(TestcontainersJooqExtension extension, Object jooqExt) {
         LinkedHashSet<String> names = new LinkedHashSet<>(normalize(extension.getDatabaseNames().getOrElse(List.of())));
-
         for (SchemaConfigurationSpec spec : extension.getConfigurations()) {
-            String schema = effectiveInputSchema(spec);
-            if (!isBlank(schema)) {
-                names.add(schema.trim());
-            }
-            names.addAll(normalize(spec.getJooqGenerator().getInputSchemata().getOrElse(List.of())));
+            names.addAll(configSchemaNames(spec));
         }
-
-        Object configurations = invoke(jooqExt, "getConfigurations");
+        Object configurations = BeanAccessor.getIfPresent(jooqExt, "configurations");
         if (configurations instanceof Map<?, ?> map) {
             for (Object entryValue : map.values()) {
-                Object jooqCfg = invoke(entryValue, "getJooqConfiguration");
-                Object generator = invoke(jooqCfg, "getGenerator");
-                Object database = invoke(generator, "getDatabase");
-
-                String inputSchema = getString(invoke(database, "getInputSchema"));
-                if (!isBlank(inputSchema)) {
-                    names.add(inputSchema.trim());
-                }
-                Object inputSchemata = invoke(database, "getInputSchemata");
-                if (inputSchemata instanceof List<?> list) {
-                    for (Object item : list) {
-                        String schema = getString(item);
-                        if (!isBlank(schema)) {
-                            names.add(schema.trim());
-                        }
-                    }
-                }
+                names.addAll(nativeSchemaNames(BeanAccessor.getIfPresent(entryValue, "jooqConfiguration")));
             }
         }
 
@@ -222,6 +709,49 @@ public class TestcontainersFlywayJooqPlugin implements Plugin<Project> {
         return normalized.isEmpty() ? List.of("app") : normalized;
     }
 
+    /**
+     * The schemas one task reads: the explicit {@code databaseNames} plus those of its own configuration.
+     */
+    private static List<String> taskSchemaNames(TestcontainersJooqExtension extension, SchemaConfigurationSpec spec, Object jooqCfg) {
+        LinkedHashSet<String> names = new LinkedHashSet<>(normalize(extension.getDatabaseNames().getOrElse(List.of())));
+        if (spec != null) {
+            names.addAll(configSchemaNames(spec));
+        }
+        if (jooqCfg != null) {
+            names.addAll(nativeSchemaNames(jooqCfg));
+        }
+        return new ArrayList<>(names);
+    }
+
+    private static List<String> configSchemaNames(SchemaConfigurationSpec spec) {
+        LinkedHashSet<String> names = new LinkedHashSet<>();
+        String schema = effectiveInputSchema(spec);
+        if (!isBlank(schema)) {
+            names.add(schema.trim());
+        }
+        names.addAll(normalize(spec.getJooqGenerator().getInputSchemata().getOrElse(List.of())));
+        return new ArrayList<>(names);
+    }
+
+    private static List<String> nativeSchemaNames(Object jooqCfg) {
+        LinkedHashSet<String> names = new LinkedHashSet<>();
+        Object database = nativeDatabase(jooqCfg);
+        String inputSchema = getString(BeanAccessor.get(database, "inputSchema"));
+        if (!isBlank(inputSchema)) {
+            names.add(inputSchema.trim());
+        }
+        Object inputSchemata = BeanAccessor.get(database, "inputSchemata");
+        if (inputSchemata instanceof List<?> list) {
+            for (Object item : list) {
+                String schema = item instanceof String value ? value : getString(BeanAccessor.get(item, "inputSchema"));
+                if (!isBlank(schema)) {
+                    names.add(schema.trim());
+                }
+            }
+        }
+        return new ArrayList<>(names);
+    }
+
     private static String effectiveInputSchema(SchemaConfigurationSpec spec) {
         if (spec == null) {
             return null;
@@ -238,7 +768,7 @@ public class TestcontainersFlywayJooqPlugin implements Plugin<Project> {
     }
 
     private static Object findJooqConfigurationForTask(Object jooqExt, String taskName) {
-        Object configurations = invoke(jooqExt, "getConfigurations");
+        Object configurations = BeanAccessor.getIfPresent(jooqExt, "configurations");
         if (!(configurations instanceof Map<?, ?> map)) {
             return null;
         }
@@ -247,7 +777,7 @@ public class TestcontainersFlywayJooqPlugin implements Plugin<Project> {
                 continue;
             }
             if (taskName.equals(taskNameForConfig(configName))) {
-                return invoke(entry.getValue(), "getJooqConfiguration");
+                return BeanAccessor.getIfPresent(entry.getValue(), "jooqConfiguration");
             }
         }
         return null;
@@ -260,15 +790,23 @@ public class TestcontainersFlywayJooqPlugin implements Plugin<Project> {
         return "generate" + Character.toUpperCase(configName.charAt(0)) + configName.substring(1) + "Jooq";
     }
 
-    private static void applySetterMap(Object target, Map<String, String> values) {
-        for (Map.Entry<String, String> entry : values.entrySet()) {
-            String raw = entry.getKey();
-            if (isBlank(raw)) {
+    private static long countFiles(Iterable<File> roots) {
+        LinkedHashSet<Path> files = new LinkedHashSet<>();
+        for (File root : roots) {
+            if (!root.exists()) {
                 continue;
             }
-            String setter = "set" + Character.toUpperCase(raw.charAt(0)) + raw.substring(1);
-            invokeSet(target, setter, entry.getValue());
+            try (Stream<Path> walk = Files.walk(root.toPath())) {
+                walk.filter(Files::isRegularFile).forEach(files::add);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
         }
+        return files.size();
+    }
+
+    private static String migrateTaskNameForConfig(String configName) {
+        return "flywayMigrate" + Character.toUpperCase(configName.charAt(0)) + configName.substring(1);
     }
 
     private static List<String> normalize(List<String> values) {
@@ -284,56 +822,154 @@ public class TestcontainersFlywayJooqPlugin implements Plugin<Project> {
         return out;
     }
 
-    private static Object invoke(Object target, String methodName) {
-        if (target == null) {
-            return null;
-        }
-        try {
-            Method method = target.getClass().getMethod(methodName);
-            return method.invoke(target);
-        } catch (ReflectiveOperationException ignored) {
-            return null;
+    private static void applyOptions(Object target, Map<String, String> values) {
+        values.forEach((key, value) -> {
+            if (!isBlank(key)) {
+                BeanAccessor.set(target, key.trim(), value);
+            }
+        });
+    }
+
+    /**
+     * Generator options name either a property of the generator itself or a flag of its {@code generate}
+     * element, with or without the {@code generate} prefix ({@code generatePojos} sets {@code pojos}).
+     */
+    private static void applyGeneratorOptions(Object generator, Map<String, String> values) {
+        values.forEach((key, value) -> {
+            if (isBlank(key)) {
+                return;
+            }
+            String property = key.trim();
+            if (BeanAccessor.of(generator.getClass()).isWritable(property)) {
+                BeanAccessor.set(generator, property, value);
+            } else {
+                Object generate = BeanAccessor.getOrCreate(generator, "generate");
+                BeanAccessor.set(generate, generateProperty(generate.getClass(), property), value);
+            }
+        });
+    }
+
+    private static String generateProperty(Class<?> generateType, String key) {
+        BeanAccessor generate = BeanAccessor.of(generateType);
+        if (!generate.isWritable(key) && key.startsWith("generate") && key.length() > "generate".length()) {
+            String stripped = Character.toLowerCase(key.charAt(8)) + key.substring(9);
+            if (generate.isWritable(stripped)) {
+                return stripped;
+            }
         }
+        return key;
     }
 
-    private static void invokeSet(Object target, String methodName, Object arg) {
-        if (target == null) {
-            return;
+    private static List<SchemaMappingType> schemaMappings(List<String> schemas) {
+        List<SchemaMappingType> mappings = new ArrayList<>();
+        for (String schema : schemas) {
+            mappings.add(new SchemaMappingType().withInputSchema(schema));
         }
-        for (Method method : target.getClass().getMethods()) {
-            if (!method.getName().equals(methodName) || method.getParameterCount() != 1) {
+        return mappings;
+    }
+
+    private static Object nativeDatabase(Object jooqCfg) {
+        return BeanAccessor.get(BeanAccessor.get(jooqCfg, "generator"), "database");
+    }
+
+    /**
+     * Fails the configuration phase on option keys that no setter accepts, instead of silently
+     * ignoring them at execution time.
+     */
+    private static void validateOptions(Project project, TestcontainersJooqExtension extension, Object jooqExt) {
+        for (SchemaConfigurationSpec spec : extension.getConfigurations()) {
+            Map<String, String> flywayOptions = spec.getFlywayConfiguration().getOptions().getOrElse(Map.of());
+            // "flyway.placeholders.x" style keys are not setters and are passed to Flyway as they are
+            BeanAccessor.of(ClassicConfiguration.class).requireWritable(trimmedKeys(flywayOptions).stream()
+                .map(key -> key.startsWith("flyway.") ? key.substring("flyway.".length()) : key)
+                .filter(key -> !key.contains("."))
+                .toList(), "Flyway options of configuration '" + spec.getName() + "'");
+
+            Object jooqCfg = findJooqConfigurationForTask(jooqExt, taskNameForConfig(spec.getName()));
+            Class<?> generatorType = jooqCfg == null ? null : BeanAccessor.of(jooqCfg.getClass()).writableType("generator");
+            if (generatorType == null) {
                 continue;
             }
-            try {
-                Object converted = convertArg(method.getParameterTypes()[0], arg);
-                if (converted != null || arg == null) {
-                    method.invoke(target, converted);
-                    return;
+            JooqGeneratorSpec jooqSpec = spec.getJooqGenerator();
+            String description = "jOOQ %s options of configuration '" + spec.getName() + "'";
+            BeanAccessor generatorAccessor = BeanAccessor.of(generatorType);
+            validateNested(generatorAccessor, "database", trimmedKeys(jooqSpec.getDatabaseOptions().getOrElse(Map.of())),
+                String.format(description, "database"));
+            validateNested(generatorAccessor, "target", trimmedKeys(jooqSpec.getTargetOptions().getOrElse(Map.of())),
+                String.format(description, "target"));
+
+            Class<?> generateType = generatorAccessor.writableType("generate");
+            List<String> unknown = new ArrayList<>();
+            for (String key : trimmedKeys(jooqSpec.getGeneratorOptions().getOrElse(Map.of()))) {
+                if (!generatorAccessor.isWritable(key)
+                    && (generateType == null || !BeanAccessor.of(generateType).isWritable(generateProperty(generateType, key)))) {
+                    unknown.add(key);
                 }
-            } catch (ReflectiveOperationException ignored) {
-                // try next overload
+            }
+            if (!unknown.isEmpty()) {
+                throw new InvalidUserDataException("Unknown " + String.format(description, "generator") + " " + unknown
+                    + ". Use a property of " + generatorType.getName()
+                    + (generateType == null ? "" : " or of " + generateType.getName() + " (optionally prefixed with 'generate')"));
             }
         }
     }
 
-    private static Object convertArg(Class<?> targetType, Object arg) {
-        if (arg == null) {
-            return null;
+    /**
+     * The broker's namespaces rename databases, so it cannot share a server with features that rely on
+     * fixed names or on owning the whole server.
+     */
+    private static void validateBroker(TestcontainersJooqExtension extension) {
+        if (!extension.getBroker().getEnabled().get()) {
+            return;
         }
-        if (targetType.isInstance(arg)) {
-            return arg;
+        List<String> conflicts = new ArrayList<>();
+        if (extension.getSnapshots().getEnabled().get()) {
+            conflicts.add("snapshots");
         }
-        if (List.class.isAssignableFrom(targetType) && arg instanceof List<?>) {
-            return arg;
+        if (extension.getReuse().getEnabled().get()) {
+            conflicts.add("reuse");
         }
-        String value = arg.toString();
-        if (targetType == String.class) {
-            return value;
+        if (extension.getTemplateMigrations().get()) {
+            conflicts.add("templateMigrations");
         }
-        if (targetType == boolean.class || targetType == Boolean.class) {
-            return Boolean.parseBoolean(value);
+        if (extension.getBackend().get() == DatabaseBackend.EMBEDDED) {
+            conflicts.add("backend = EMBEDDED");
         }
-        return null;
+        if (extension.getXmlSchemaSnapshots().get() && extension.getDatabaseType().get() != SupportedDatabase.POSTGRES) {
+            // the exports would contain this build's namespaced database names
+            conflicts.add("xmlSchemaSnapshots (on " + extension.getDatabaseType().get() + ")");
+        }
+        if (!conflicts.isEmpty()) {
+            throw new InvalidUserDataException("testcontainersJooq.broker cannot be combined with " + String.join(", ", conflicts));
+        }
+    }
+
+    private static void validateBackend(TestcontainersJooqExtension extension) {
+        if (extension.getBackend().get() != DatabaseBackend.EMBEDDED) {
+            return;
+        }
+        List<String> conflicts = new ArrayList<>();
+        if (extension.getSnapshots().getEnabled().get()) {
+            conflicts.add("snapshots");
+        }
+        if (extension.getReuse().getEnabled().get()) {
+            conflicts.add("reuse");
+        }
+        if (!conflicts.isEmpty()) {
+            throw new InvalidUserDataException("testcontainersJooq.backend = EMBEDDED cannot be combined with "
+                + String.join(", ", conflicts) + "; they keep containers");
+        }
+    }
+
+    private static void validateNested(BeanAccessor generator, String property, List<String> keys, String description) {
+        Class<?> type = generator.writableType(property);
+        if (type != null && !keys.isEmpty()) {
+            BeanAccessor.of(type).requireWritable(keys, description);
+        }
+    }
+
+    private static List<String> trimmedKeys(Map<String, String> options) {
+        return options.keySet().stream().filter(key -> !isBlank(key)).map(String::trim).toList();
     }
 
     private static String getString(Object value) {
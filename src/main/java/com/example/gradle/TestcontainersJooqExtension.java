@@ -1,11 +1,13 @@
 package com.example.gradle;
 
+import org.gradle.api.Action;
 import org.gradle.api.NamedDomainObjectContainer;
 import org.gradle.api.model.ObjectFactory;
 import org.gradle.api.provider.ListProperty;
 import org.gradle.api.provider.Property;
 
 import javax.inject.Inject;
+import java.time.Duration;
 
 public abstract class TestcontainersJooqExtension {
     private final Property<SupportedDatabase> databaseType;
@@ -14,7 +16,22 @@ public abstract class TestcontainersJooqExtension {
     private final Property<String> password;
     private final Property<String> jdbcDriverDependency;
     private final ListProperty<String> databaseNames;
+    private final Property<Integer> codegenParallelism;
+    private final Property<Boolean> timingsSummary;
+    private final Property<Boolean> prewarm;
+    private final Property<PerformanceProfile> performanceProfile;
+    private final Property<DatabaseBackend> backend;
+    private final Property<Boolean> templateMigrations;
+    private final Property<Boolean> xmlSchemaSnapshots;
+    private final Property<CodegenExecution> codegenExecution;
+    private final Property<Duration> continuousIdleTimeout;
     private final NamedDomainObjectContainer<SchemaConfigurationSpec> configurations;
+    private final SnapshotSpec snapshots;
+    private final ReuseSpec reuse;
+    private final EmbeddedSpec embedded;
+    private final ReadinessSpec readiness;
+    private final BrokerSpec broker;
+    private final MigrationProfileSpec migrationProfile;
 
     @Inject
     public TestcontainersJooqExtension(ObjectFactory objects) {
@@ -24,8 +41,23 @@ public abstract class TestcontainersJooqExtension {
         this.password = objects.property(String.class).convention("app");
         this.jdbcDriverDependency = objects.property(String.class);
         this.databaseNames = objects.listProperty(String.class);
+        this.codegenParallelism = objects.property(Integer.class).convention(Runtime.getRuntime().availableProcessors());
+        this.timingsSummary = objects.property(Boolean.class).convention(false);
+        this.prewarm = objects.property(Boolean.class).convention(false);
+        this.performanceProfile = objects.property(PerformanceProfile.class).convention(PerformanceProfile.STANDARD);
+        this.backend = objects.property(DatabaseBackend.class).convention(DatabaseBackend.TESTCONTAINERS);
+        this.templateMigrations = objects.property(Boolean.class).convention(false);
+        this.xmlSchemaSnapshots = objects.property(Boolean.class).convention(false);
+        this.codegenExecution = objects.property(CodegenExecution.class).convention(CodegenExecution.JAVAEXEC);
+        this.continuousIdleTimeout = objects.property(Duration.class).convention(Duration.ofMinutes(30));
         this.configurations = objects.domainObjectContainer(SchemaConfigurationSpec.class,
             name -> objects.newInstance(SchemaConfigurationSpec.class, name));
+        this.snapshots = objects.newInstance(SnapshotSpec.class);
+        this.reuse = objects.newInstance(ReuseSpec.class);
+        this.embedded = objects.newInstance(EmbeddedSpec.class);
+        this.readiness = objects.newInstance(ReadinessSpec.class);
+        this.broker = objects.newInstance(BrokerSpec.class);
+        this.migrationProfile = objects.newInstance(MigrationProfileSpec.class);
     }
 
     public Property<SupportedDatabase> getDatabaseType() { return databaseType; }
@@ -34,5 +66,44 @@ public abstract class TestcontainersJooqExtension {
     public Property<String> getPassword() { return password; }
     public Property<String> getJdbcDriverDependency() { return jdbcDriverDependency; }
     public ListProperty<String> getDatabaseNames() { return databaseNames; }
+    public Property<Integer> getCodegenParallelism() { return codegenParallelism; }
+    public Property<Boolean> getTimingsSummary() { return timingsSummary; }
+    public Property<Boolean> getPrewarm() { return prewarm; }
+    public Property<PerformanceProfile> getPerformanceProfile() { return performanceProfile; }
+    public Property<DatabaseBackend> getBackend() { return backend; }
+    public Property<Boolean> getTemplateMigrations() { return templateMigrations; }
+    public Property<Boolean> getXmlSchemaSnapshots() { return xmlSchemaSnapshots; }
+    public Property<CodegenExecution> getCodegenExecution() { return codegenExecution; }
+    public Property<Duration> getContinuousIdleTimeout() { return continuousIdleTimeout; }
     public NamedDomainObjectContainer<SchemaConfigurationSpec> getConfigurations() { return configurations; }
+    public SnapshotSpec getSnapshots() { return snapshots; }
+    public ReuseSpec getReuse() { return reuse; }
+    public EmbeddedSpec getEmbedded() { return embedded; }
+    public ReadinessSpec getReadiness() { return readiness; }
+    public BrokerSpec getBroker() { return broker; }
+    public MigrationProfileSpec getMigrationProfile() { return migrationProfile; }
+
+    public void snapshots(Action<? super SnapshotSpec> action) {
+        action.execute(snapshots);
+    }
+
+    public void reuse(Action<? super ReuseSpec> action) {
+        action.execute(reuse);
+    }
+
+    public void embedded(Action<? super EmbeddedSpec> action) {
+        action.execute(embedded);
+    }
+
+    public void readiness(Action<? super ReadinessSpec> action) {
+        action.execute(readiness);
+    }
+
+    public void broker(Action<? super BrokerSpec> action) {
+        action.execute(broker);
+    }
+
+    public void migrationProfile(Action<? super MigrationProfileSpec> action) {
+        action.execute(migrationProfile);
+    }
 }
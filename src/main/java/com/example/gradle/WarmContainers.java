@@ -0,0 +1,73 @@
+package com.example.gradle;
+
+import org.testcontainers.containers.JdbcDatabaseContainer;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Containers parked in the Gradle daemon between the iterations of a continuous build. A parked
+ * container that is not picked up again within the idle timeout is stopped, or for a reused container,
+ * handed back to {@link ContainerReuse} (lease touched, lock released) so it idles out like after any
+ * other build.
+ */
+final class WarmContainers {
+    private static final Map<String, Warm> PARKED = new ConcurrentHashMap<>();
+    private static final ScheduledExecutorService STOPPER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "testcontainers-jooq-warm-stopper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * {@code container} is null when the endpoint belongs to a reused container this daemon did not start;
+     * {@code reuse} is set for reused containers and still holds their lock.
+     */
+    record Warm(JdbcDatabaseContainer<?> container, ContainerReuse reuse, String containerId, String jdbcUrl,
+                Set<String> initializedNames) {
+    }
+
+    private WarmContainers() {
+    }
+
+    static Optional<Warm> take(String key) {
+        Warm warm = PARKED.remove(key);
+        if (warm == null) {
+            return Optional.empty();
+        }
+        if (warm.container() != null && !warm.container().isRunning()) {
+            retire(warm);
+            return Optional.empty();
+        }
+        return Optional.of(warm);
+    }
+
+    static void park(String key, Warm warm, Duration idleTimeout) {
+        if (warm.reuse() != null) {
+            warm.reuse().touch(warm.containerId());
+        }
+        Warm previous = PARKED.put(key, warm);
+        if (previous != null && previous != warm) {
+            retire(previous);
+        }
+        STOPPER.schedule(() -> {
+            if (PARKED.remove(key, warm)) {
+                retire(warm);
+            }
+        }, idleTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private static void retire(Warm warm) {
+        if (warm.reuse() != null) {
+            warm.reuse().release(warm.containerId());
+        } else if (warm.container() != null) {
+            warm.container().stop();
+        }
+    }
+}
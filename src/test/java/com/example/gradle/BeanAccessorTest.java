@@ -0,0 +1,130 @@
+package com.example.gradle;
+
+import org.gradle.api.InvalidUserDataException;
+import org.jooq.meta.jaxb.Database;
+import org.jooq.meta.jaxb.Generate;
+import org.jooq.meta.jaxb.Generator;
+import org.jooq.meta.jaxb.Target;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BeanAccessorTest {
+
+    public static class Overloaded {
+        private String text;
+        private Integer number;
+
+        public void setValue(Integer value) {
+            this.number = value;
+        }
+
+        public void setValue(String value) {
+            this.text = value;
+        }
+    }
+
+    public static class Fields {
+        public String name;
+        public String[] locations;
+        public final String fixed = "fixed";
+    }
+
+    @Test
+    void convertsStringsToTheSetterType() {
+        assertEquals(Boolean.TRUE, BeanAccessor.convert(boolean.class, " true "));
+        assertEquals(42, BeanAccessor.convert(int.class, "42"));
+        assertEquals(7L, BeanAccessor.convert(Long.class, 7));
+        assertEquals(TimeUnit.SECONDS, BeanAccessor.convert(TimeUnit.class, "seconds"));
+        assertArrayEquals(new String[] {"a", "b"}, (String[]) BeanAccessor.convert(String[].class, "a, b,,"));
+        assertEquals(List.of("a", "b"), BeanAccessor.convert(List.class, "a,b"));
+        assertEquals(" keep ", BeanAccessor.convert(String.class, " keep "));
+    }
+
+    @Test
+    void convertsCollections() {
+        Object copied = BeanAccessor.convert(List.class, Set.of("x"));
+        assertInstanceOf(ArrayList.class, copied);
+        assertEquals(List.of("x"), copied);
+        assertArrayEquals(new String[] {"1", "2"}, (String[]) BeanAccessor.convert(String[].class, List.of(1, 2)));
+        assertNull(BeanAccessor.convert(Integer.class, List.of(1)));
+    }
+
+    @Test
+    void passesThroughAssignableValuesAndRejectsUnknownTargets() {
+        Target target = new Target();
+        assertSame(target, BeanAccessor.convert(Target.class, target));
+        assertNull(BeanAccessor.convert(Target.class, "target"));
+        assertNull(BeanAccessor.convert(String.class, null));
+        assertThrows(NumberFormatException.class, () -> BeanAccessor.convert(Integer.class, "many"));
+    }
+
+    @Test
+    void picksTheOverloadThatAcceptsTheValue() {
+        Overloaded text = new Overloaded();
+        BeanAccessor.set(text, "value", "hello");
+        assertEquals("hello", text.text);
+        assertNull(text.number);
+
+        Overloaded number = new Overloaded();
+        BeanAccessor.set(number, "value", 5);
+        assertEquals(5, number.number);
+        assertNull(number.text);
+    }
+
+    @Test
+    void readsAndWritesJooqConfiguration() {
+        Generator generator = new Generator();
+        Database database = (Database) BeanAccessor.getOrCreate(generator, "database");
+        assertSame(database, generator.getDatabase());
+
+        BeanAccessor.set(database, "inputSchema", "app");
+        BeanAccessor.set(database, "includeIndexes", "false");
+        assertEquals("app", BeanAccessor.get(database, "inputSchema"));
+        assertEquals(Boolean.FALSE, database.isIncludeIndexes());
+
+        Generate generate = (Generate) BeanAccessor.getOrCreate(generator, "generate");
+        BeanAccessor.set(generate, "pojos", true);
+        assertTrue(generate.isPojos());
+    }
+
+    @Test
+    void accessesPublicFields() {
+        Fields fields = new Fields();
+        BeanAccessor.set(fields, "name", "flyway");
+        BeanAccessor.set(fields, "locations", List.of("db/a", "db/b"));
+        assertEquals("flyway", BeanAccessor.get(fields, "name"));
+        assertArrayEquals(new String[] {"db/a", "db/b"}, fields.locations);
+        assertEquals("fixed", BeanAccessor.get(fields, "fixed"));
+        assertThrows(InvalidUserDataException.class, () -> BeanAccessor.set(fields, "fixed", "other"));
+    }
+
+    @Test
+    void unknownPropertiesFailOnGetAndSet() {
+        Database database = new Database();
+        assertThrows(InvalidUserDataException.class, () -> BeanAccessor.get(database, "inputSchemaa"));
+        assertThrows(InvalidUserDataException.class, () -> BeanAccessor.set(database, "inputSchemaa", "app"));
+        assertThrows(InvalidUserDataException.class, () -> BeanAccessor.set(database, "logSlowQueriesAfterSeconds", "soon"));
+    }
+
+    @Test
+    void getIfPresentToleratesMissingPropertiesAndTargets() {
+        assertNull(BeanAccessor.getIfPresent(new Database(), "runtimeClasspath"));
+        assertNull(BeanAccessor.getIfPresent(null, "locations"));
+        assertNull(BeanAccessor.get(null, "locations"));
+        Fields fields = new Fields();
+        fields.name = "flyway";
+        assertEquals("flyway", BeanAccessor.getIfPresent(fields, "name"));
+    }
+}
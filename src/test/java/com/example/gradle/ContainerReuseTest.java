@@ -0,0 +1,43 @@
+package com.example.gradle;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContainerReuseTest {
+
+    @TempDir
+    File stateDirectory;
+
+    private ContainerReuse reuse(String primaryName) {
+        return new ContainerReuse(SupportedDatabase.POSTGRES, "postgres:16-alpine", "test", "test", primaryName,
+            stateDirectory, Duration.ofMinutes(30));
+    }
+
+    @Test
+    void onlyOneBuildUsesAContainerAtATime() {
+        ContainerReuse first = reuse("app");
+        ContainerReuse second = reuse("app");
+        assertTrue(first.tryLock());
+        assertFalse(second.tryLock());
+
+        first.release(null);
+        assertTrue(second.tryLock());
+        second.release(null);
+    }
+
+    @Test
+    void primaryDatabasesHaveContainersOfTheirOwn() {
+        ContainerReuse app = reuse("app");
+        ContainerReuse billing = reuse("billing");
+        assertTrue(app.tryLock());
+        assertTrue(billing.tryLock());
+        app.release(null);
+        billing.release(null);
+    }
+}
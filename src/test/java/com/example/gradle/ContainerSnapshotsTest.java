@@ -0,0 +1,51 @@
+package com.example.gradle;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContainerSnapshotsTest {
+    private static final Map<String, String> SNAPSHOT = Map.of(
+        "db/migration/V1__init.sql", "a",
+        "db/migration/V1_2__users.sql", "b",
+        "db/migration/R__views.sql", "c");
+
+    @Test
+    void acceptsMigrationsAddedAfterTheLatestApplied() {
+        assertTrue(ContainerSnapshots.isCompatible(SNAPSHOT, with("db/migration/V2__orders.sql")));
+        assertTrue(ContainerSnapshots.isCompatible(SNAPSHOT, with("db/migration/V1.10__orders.sql")));
+        assertTrue(ContainerSnapshots.isCompatible(SNAPSHOT, with("db/migration/R__reports.sql")));
+    }
+
+    @Test
+    void rejectsMigrationsAddedAtOrBelowTheLatestApplied() {
+        assertFalse(ContainerSnapshots.isCompatible(SNAPSHOT, with("db/migration/V1_1__backfill.sql")));
+        assertFalse(ContainerSnapshots.isCompatible(SNAPSHOT, with("other/V1.2__users_again.sql")));
+        assertFalse(ContainerSnapshots.isCompatible(SNAPSHOT, with("db/migration/V0_9__early.sql")));
+    }
+
+    @Test
+    void rejectsChangedOrRemovedVersionedMigrations() {
+        Map<String, String> edited = new HashMap<>(SNAPSHOT);
+        edited.put("db/migration/V1__init.sql", "changed");
+        assertFalse(ContainerSnapshots.isCompatible(SNAPSHOT, edited));
+
+        Map<String, String> removed = new HashMap<>(SNAPSHOT);
+        removed.remove("db/migration/V1__init.sql");
+        assertFalse(ContainerSnapshots.isCompatible(SNAPSHOT, removed));
+
+        Map<String, String> repeatable = new HashMap<>(SNAPSHOT);
+        repeatable.put("db/migration/R__views.sql", "changed");
+        assertTrue(ContainerSnapshots.isCompatible(SNAPSHOT, repeatable));
+    }
+
+    private static Map<String, String> with(String migration) {
+        Map<String, String> current = new HashMap<>(SNAPSHOT);
+        current.put(migration, "new");
+        return current;
+    }
+}
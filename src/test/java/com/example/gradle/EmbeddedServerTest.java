@@ -0,0 +1,58 @@
+package com.example.gradle;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisabledOnOs(OS.WINDOWS)
+class EmbeddedServerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void stopsServersOfDaemonsThatAreGone() throws Exception {
+        Process goneDaemon = new ProcessBuilder("true").start();
+        ProcessHandle owner = goneDaemon.toHandle();
+        goneDaemon.waitFor(10, TimeUnit.SECONDS);
+        Process server = new ProcessBuilder("sleep", "60").start();
+        Path work = Files.createDirectories(directory.resolve("work/data"));
+        try {
+            Path record = EmbeddedServer.writeRecord(directory.resolve("running"), owner, server.toHandle(), work.getParent());
+
+            EmbeddedServer.cleanUpAbandoned(directory.resolve("running"));
+
+            assertTrue(server.waitFor(10, TimeUnit.SECONDS));
+            assertFalse(Files.exists(work.getParent()));
+            assertFalse(Files.exists(record));
+        } finally {
+            server.destroyForcibly();
+        }
+    }
+
+    @Test
+    void keepsServersOfRunningDaemons() throws IOException {
+        Process server = new ProcessBuilder("sleep", "60").start();
+        Path work = Files.createDirectories(directory.resolve("work"));
+        try {
+            Path record = EmbeddedServer.writeRecord(directory.resolve("running"), ProcessHandle.current(), server.toHandle(), work);
+
+            EmbeddedServer.cleanUpAbandoned(directory.resolve("running"));
+
+            assertTrue(server.isAlive());
+            assertTrue(Files.exists(work));
+            assertTrue(Files.exists(record));
+        } finally {
+            server.destroyForcibly();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.gradle;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class GeneratedSourcesTest {
+    private static final FileTime FIRST_RUN = FileTime.fromMillis(1_000_000_000_000L);
+    private static final FileTime SECOND_RUN = FileTime.fromMillis(1_100_000_000_000L);
+
+    @TempDir
+    Path temp;
+
+    @Test
+    void restoresUnchangedFilesOfSameNamedOutputDirectories() throws IOException {
+        File first = temp.resolve("a/jooq").toFile();
+        File second = temp.resolve("b/jooq").toFile();
+        assertNotEquals(GeneratedSources.key(first), GeneratedSources.key(second));
+
+        setAside(first, second);
+        regenerate(first, "class A {}", FIRST_RUN);
+        regenerate(second, "class B {}", FIRST_RUN);
+        restore(first);
+        restore(second);
+
+        setAside(first, second);
+        regenerate(first, "class A {}", SECOND_RUN);
+        regenerate(second, "class B {}", SECOND_RUN);
+        Map<String, Long> firstCounters = restore(first);
+        Map<String, Long> secondCounters = restore(second);
+
+        assertEquals(1L, firstCounters.get("filesUnchanged"));
+        assertEquals(1L, secondCounters.get("filesUnchanged"));
+        assertEquals(FIRST_RUN, Files.getLastModifiedTime(item(first)));
+        assertEquals(FIRST_RUN, Files.getLastModifiedTime(item(second)));
+    }
+
+    @Test
+    void keepsRegeneratedFilesThatChanged() throws IOException {
+        File output = temp.resolve("jooq").toFile();
+        setAside(output);
+        regenerate(output, "class A {}", FIRST_RUN);
+        restore(output);
+
+        setAside(output);
+        regenerate(output, "class A { int changed; }", SECOND_RUN);
+        Map<String, Long> counters = restore(output);
+
+        assertEquals(1L, counters.get("filesWritten"));
+        assertEquals(SECOND_RUN, Files.getLastModifiedTime(item(output)));
+        assertEquals("class A { int changed; }", Files.readString(item(output)));
+    }
+
+    private void setAside(File... outputs) {
+        for (File output : outputs) {
+            GeneratedSources.setAside(output, previous(output));
+        }
+    }
+
+    private Map<String, Long> restore(File output) {
+        return GeneratedSources.restoreUnchanged(output, previous(output),
+            GeneratedSources.manifest(temp.resolve("manifests").toFile(), output));
+    }
+
+    private File previous(File output) {
+        return temp.resolve("tmp/previous-" + GeneratedSources.key(output)).toFile();
+    }
+
+    private static void regenerate(File output, String content, FileTime modified) throws IOException {
+        Path file = item(output);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+        Files.setLastModifiedTime(file, modified);
+    }
+
+    private static Path item(File output) {
+        return output.toPath().resolve("app/Item.java");
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.gradle;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class JavaSourceMergeTest {
+
+    @Test
+    void unitesImportsAndAddsFieldsAfterTheLastField() {
+        String first = """
+            package app;
+
+
+            import app.tables.Author;
+            import app.tables.records.AuthorRecord;
+
+            import org.jooq.UniqueKey;
+
+
+            /**
+             * A class modelling foreign key relationships and constraints of tables in app.
+             */
+            @SuppressWarnings({ "all", "unchecked", "rawtypes" })
+            public class Keys {
+
+                // -------------------------------------------------------------------------
+                // UNIQUE and PRIMARY KEY definitions
+                // -------------------------------------------------------------------------
+
+                public static final UniqueKey<AuthorRecord> AUTHOR_PKEY = Internal.createUniqueKey(Author.AUTHOR, "author_pkey");
+
+                static String describe() {
+                    return "keys";
+                }
+            }
+            """;
+        String second = """
+            package app;
+
+
+            import app.tables.Customer;
+            import app.tables.records.CustomerRecord;
+
+            import org.jooq.UniqueKey;
+
+
+            /**
+             * A class modelling foreign key relationships and constraints of tables in app.
+             */
+            @SuppressWarnings({ "all", "unchecked", "rawtypes" })
+            public class Keys {
+
+                // -------------------------------------------------------------------------
+                // UNIQUE and PRIMARY KEY definitions
+                // -------------------------------------------------------------------------
+
+                public static final UniqueKey<CustomerRecord> CUSTOMER_PKEY = Internal.createUniqueKey(Customer.CUSTOMER, "customer_pkey");
+
+                static String describe() {
+                    return "keys";
+                }
+            }
+            """;
+
+        assertEquals("""
+            package app;
+
+
+            import app.tables.Author;
+            import app.tables.records.AuthorRecord;
+            import org.jooq.UniqueKey;
+            import app.tables.Customer;
+            import app.tables.records.CustomerRecord;
+
+
+            /**
+             * A class modelling foreign key relationships and constraints of tables in app.
+             */
+            @SuppressWarnings({ "all", "unchecked", "rawtypes" })
+            public class Keys {
+
+                // -------------------------------------------------------------------------
+                // UNIQUE and PRIMARY KEY definitions
+                // -------------------------------------------------------------------------
+
+                public static final UniqueKey<AuthorRecord> AUTHOR_PKEY = Internal.createUniqueKey(Author.AUTHOR, "author_pkey");
+
+                public static final UniqueKey<CustomerRecord> CUSTOMER_PKEY = Internal.createUniqueKey(Customer.CUSTOMER, "customer_pkey");
+
+                static String describe() {
+                    return "keys";
+                }
+            }
+            """, JavaSourceMerge.merge(first, second));
+    }
+
+    @Test
+    void unitesTheListsOfMembersBothVersionsHave() {
+        String first = """
+            package app;
+
+            import java.util.Arrays;
+            import java.util.List;
+
+            public class App extends SchemaImpl {
+
+                public final Author AUTHOR = Author.AUTHOR;
+
+                @Override
+                public final List<Table<?>> getTables() {
+                    return Arrays.asList(
+                        Author.AUTHOR,
+                        Book.BOOK
+                    );
+                }
+            }
+            """;
+        String second = """
+            package app;
+
+            import java.util.Arrays;
+            import java.util.List;
+
+            public class App extends SchemaImpl {
+
+                public final Customer CUSTOMER = Customer.CUSTOMER;
+
+                @Override
+                public final List<Table<?>> getTables() {
+                    return Arrays.asList(
+                        Customer.CUSTOMER,
+                        Book.BOOK
+                    );
+                }
+            }
+            """;
+
+        assertEquals("""
+            package app;
+
+            import java.util.Arrays;
+            import java.util.List;
+
+            public class App extends SchemaImpl {
+
+                public final Author AUTHOR = Author.AUTHOR;
+
+                public final Customer CUSTOMER = Customer.CUSTOMER;
+
+                @Override
+                public final List<Table<?>> getTables() {
+                    return Arrays.asList(
+                        Author.AUTHOR,
+                        Book.BOOK,
+                        Customer.CUSTOMER
+                    );
+                }
+            }
+            """, JavaSourceMerge.merge(first, second));
+    }
+
+    @Test
+    void keepsTheFirstVersionOfIdenticalAndUnmergeableMembers() {
+        String first = """
+            package app;
+
+            public class Indexes {
+                public static final Index BOOK_TITLE = Internal.createIndex("book_title");
+
+                static int count() {
+                    return 1;
+                }
+            }
+            """;
+        String second = """
+            package app;
+
+            public class Indexes {
+                public static final Index BOOK_TITLE = Internal.createIndex("book_title");
+
+                static int count() {
+                    return 2;
+                }
+            }
+            """;
+
+        assertEquals(first, JavaSourceMerge.merge(first, second));
+        assertEquals(first, JavaSourceMerge.merge(first, "not java {"));
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.gradle;
+
+import org.gradle.api.InvalidUserDataException;
+import org.gradle.process.JavaExecSpec;
+import org.gradle.process.JavaForkOptions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JooqCodegenWorkerTest {
+
+    @Test
+    void forwardsJvmOptionsToTheWorkerForkOptions() {
+        List<String> calls = new ArrayList<>();
+        JavaForkOptions options = (JavaForkOptions) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[] {JavaForkOptions.class}, (proxy, method, args) -> {
+                calls.add(method.getName() + Arrays.deepToString(args));
+                return method.getReturnType().isInstance(proxy) ? proxy : null;
+            });
+        JavaExecSpec spec = JooqCodegenWorker.forkOptionsSpec(options);
+
+        spec.setMaxHeapSize("2g");
+        assertSame(spec, spec.systemProperty("jooq.codegen.logging", "WARN"));
+        spec.jvmArgs("-Xss4m");
+        spec.setStandardOutput(new ByteArrayOutputStream());
+        assertSame(spec, spec.args("ignored"));
+
+        assertEquals(List.of("setMaxHeapSize[2g]", "systemProperty[jooq.codegen.logging, WARN]", "jvmArgs[[-Xss4m]]"), calls);
+        assertThrows(InvalidUserDataException.class, spec::getMainClass);
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.gradle;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JooqShardsTest {
+    private static final List<String> TABLES = List.of("author", "book", "chapter", "customer", "invoice", "setting");
+    private static final List<String[]> FOREIGN_KEYS = List.of(
+        new String[] {"book", "author"},
+        new String[] {"chapter", "book"},
+        new String[] {"invoice", "customer"});
+
+    @TempDir
+    Path temp;
+
+    @Test
+    void keepsTablesConnectedByForeignKeysInOneShard() {
+        List<List<String>> plan = JooqShards.plan("app", TABLES, FOREIGN_KEYS, 2, List.of(), null, null);
+
+        assertEquals(List.of(List.of("author", "book", "chapter"), List.of("customer", "invoice", "setting")), plan);
+        for (String[] edge : FOREIGN_KEYS) {
+            assertTrue(plan.stream().anyMatch(shard -> shard.contains(edge[0]) && shard.contains(edge[1])),
+                edge[0] + " and " + edge[1] + " share a shard");
+        }
+    }
+
+    @Test
+    void neverSplitsAComponentEvenWithMoreShardsThanComponents() {
+        List<List<String>> plan = JooqShards.plan("app", TABLES, FOREIGN_KEYS, 8, List.of(), null, null);
+
+        assertEquals(List.of(List.of("author", "book", "chapter"), List.of("customer", "invoice"), List.of("setting")), plan);
+    }
+
+    @Test
+    void groupsComponentsByPatternWithTheRemainderFirst() {
+        List<List<String>> plan = JooqShards.plan("app", TABLES, FOREIGN_KEYS, 0, List.of("cust.*"), null, null);
+
+        assertEquals(List.of(List.of("author", "book", "chapter", "setting"), List.of("customer", "invoice")), plan);
+    }
+
+    @Test
+    void appliesTheConfiguredFiltersToPlainAndQualifiedNames() {
+        List<List<String>> plan = JooqShards.plan("app", TABLES, FOREIGN_KEYS, 3, List.of(), "author|book|customer|invoice",
+            "app\\.invoice");
+
+        assertEquals(List.of(List.of("author", "book"), List.of("customer")), plan);
+    }
+
+    @Test
+    void firstShardKeepsTheFiltersAndExcludesTheOthers() {
+        List<List<String>> plan = List.of(List.of("author", "book"), List.of("customer"), List.of("setting"));
+
+        assertArrayEquals(new String[] {".*", "(?:flyway_.*)|\\Qcustomer\\E|\\Qsetting\\E"},
+            JooqShards.filters(plan, 0, ".*", "flyway_.*"));
+        assertArrayEquals(new String[] {".*", "\\Qcustomer\\E|\\Qsetting\\E"}, JooqShards.filters(plan, 0, ".*", null));
+        assertArrayEquals(new String[] {"\\Qcustomer\\E", "flyway_.*"}, JooqShards.filters(plan, 1, ".*", "flyway_.*"));
+    }
+
+    @Test
+    void mergesSharedFilesAndMovesTheRest() throws IOException {
+        Path first = temp.resolve("shards/0");
+        Path second = temp.resolve("shards/1");
+        Path output = temp.resolve("out");
+        write(first.resolve("app/tables/Author.java"), "class Author {}\n");
+        write(second.resolve("app/tables/Customer.java"), "class Customer {}\n");
+        write(first.resolve("app/Keys.java"), """
+            package app;
+
+            public class Keys {
+                public static final String AUTHOR_PKEY = "author_pkey";
+            }
+            """);
+        write(second.resolve("app/Keys.java"), """
+            package app;
+
+            public class Keys {
+                public static final String CUSTOMER_PKEY = "customer_pkey";
+            }
+            """);
+        write(first.resolve("app/README.txt"), "same\n");
+        write(second.resolve("app/README.txt"), "same\n");
+
+        long merged = JooqShards.merge(List.of(first.toFile(), second.toFile()), output.toFile());
+
+        assertEquals(1, merged);
+        assertTrue(Files.isRegularFile(output.resolve("app/tables/Author.java")));
+        assertTrue(Files.isRegularFile(output.resolve("app/tables/Customer.java")));
+        String keys = Files.readString(output.resolve("app/Keys.java"));
+        assertTrue(keys.contains("AUTHOR_PKEY") && keys.contains("CUSTOMER_PKEY"), keys);
+        assertEquals("same\n", Files.readString(output.resolve("app/README.txt")));
+        assertFalse(Files.exists(first));
+        assertFalse(Files.exists(second));
+    }
+
+    private static void write(Path file, String text) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, text, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.gradle;
+
+import org.gradle.testkit.runner.BuildResult;
+import org.gradle.testkit.runner.GradleRunner;
+import org.gradle.testkit.runner.TaskOutcome;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.testcontainers.DockerClientFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * A native jOOQ configuration has no migrate task of its own; on a rebuild its migrate task is up to date
+ * while generation still runs against a fresh container, which therefore has to be migrated in-task.
+ */
+class NativeGenerateRebuildTest {
+
+    @TempDir
+    Path project;
+
+    @Test
+    void regeneratesFromMigratedSchemaWhenMigrateTaskIsUpToDate() throws IOException {
+        assumeTrue(DockerClientFactory.instance().isDockerAvailable(), "needs Docker");
+        Files.writeString(project.resolve("settings.gradle"), "rootProject.name = 'native-fixture'\n");
+        Files.writeString(project.resolve("build.gradle"), """
+            plugins {
+              id 'java'
+              id 'com.example.testcontainers-flyway-jooq'
+            }
+
+            repositories {
+              mavenCentral()
+            }
+
+            testcontainersJooq {
+              databaseType = com.example.gradle.SupportedDatabase.POSTGRES
+            }
+
+            flyway {
+              locations = ['filesystem:src/main/resources/db/migration']
+            }
+
+            jooq {
+              configurations {
+                main {
+                  jooqConfiguration {
+                    generator {
+                      database { inputSchema = 'public' }
+                      target { packageName = 'fixture.jooq' }
+                    }
+                  }
+                }
+              }
+            }
+            """);
+        Path migrations = Files.createDirectories(project.resolve("src/main/resources/db/migration"));
+        Files.writeString(migrations.resolve("V1__item.sql"), "CREATE TABLE item (id BIGINT PRIMARY KEY, name VARCHAR(100));\n");
+
+        generate();
+        assertTrue(generatedItemTable(), "first build generates the item table");
+
+        BuildResult rebuild = generate();
+        assertEquals(TaskOutcome.UP_TO_DATE, rebuild.task(":flywayMigrateDefault").getOutcome());
+        assertTrue(generatedItemTable(), "second build still generates the item table");
+    }
+
+    private BuildResult generate() {
+        return GradleRunner.create()
+            .withProjectDir(project.toFile())
+            .withPluginClasspath()
+            .withArguments("generateJooq", "--stacktrace")
+            .build();
+    }
+
+    private boolean generatedItemTable() throws IOException {
+        Path generated = project.resolve("build/generated-src/jooq/main");
+        if (!Files.isDirectory(generated)) {
+            return false;
+        }
+        try (Stream<Path> files = Files.walk(generated)) {
+            return files.anyMatch(file -> file.getFileName().toString().equals("Item.java"));
+        }
+    }
+}
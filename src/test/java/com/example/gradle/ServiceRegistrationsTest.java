@@ -0,0 +1,45 @@
+package com.example.gradle;
+
+import org.gradle.api.InvalidUserDataException;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ServiceRegistrationsTest {
+
+    @Test
+    void projectsWithTheSameSettingsShareARegistration() {
+        ServiceRegistrations registrations = new ServiceRegistrations();
+        ServiceRegistrations.Registration app = registrations.register("postgres-1", ":app", Map.of("reuse.enabled", true));
+        ServiceRegistrations.Registration api = registrations.register("postgres-1", ":api", Map.of("reuse.enabled", true));
+        assertSame(app, api);
+
+        app.addMigrationDirectories(() -> List.of(new File("app/migrations"), new File("shared/migrations")));
+        api.addMigrationDirectories(() -> List.of(new File("shared/migrations"), new File("api/migrations")));
+        app.addPrewarmNames(() -> List.of("app"));
+        api.addPrewarmNames(() -> List.of("app", "audit"));
+        assertEquals(List.of(new File("app/migrations"), new File("shared/migrations"), new File("api/migrations")),
+            app.migrationDirectories());
+        assertEquals(List.of("app", "audit"), api.prewarmNames());
+    }
+
+    @Test
+    void differingSettingsFail() {
+        ServiceRegistrations registrations = new ServiceRegistrations();
+        registrations.register("postgres-1", ":app", Map.of("reuse.idleTimeout", Duration.ofMinutes(30), "prewarm", true));
+        InvalidUserDataException failure = assertThrows(InvalidUserDataException.class,
+            () -> registrations.register("postgres-1", ":api", Map.of("reuse.idleTimeout", Duration.ofMinutes(5), "prewarm", true)));
+        assertTrue(failure.getMessage().contains(":app"));
+        assertTrue(failure.getMessage().contains("reuse.idleTimeout"));
+
+        registrations.register("postgres-2", ":api", Map.of("reuse.idleTimeout", Duration.ofMinutes(5), "prewarm", true));
+    }
+}